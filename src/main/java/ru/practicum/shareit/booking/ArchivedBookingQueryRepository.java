@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ArchivedBookingQueryRepository {
+    /**
+     * Возвращает limit записей архива начиная с offset сразу в виде DTO, без подсчёта общего количества.
+     * Смещение произвольное: страница архива продолжает страницу bookings с того места, где та закончилась.
+     */
+    List<BookingDtoResponse> findDtoRange(Specification<ArchivedBooking> specification, Sort sort,
+                                          long offset, int limit);
+
+    /**
+     * Читает архив курсором JDBC сразу в виде DTO; требования те же, что у {@link BookingQueryRepository#streamDtos}.
+     */
+    Stream<BookingDtoResponse> streamDtos(Specification<ArchivedBooking> specification, Sort sort);
+}
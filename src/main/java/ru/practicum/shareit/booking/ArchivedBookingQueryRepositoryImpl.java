@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ArchivedBookingQueryRepositoryImpl extends FetchingQuerySupport<ArchivedBooking>
+        implements ArchivedBookingQueryRepository {
+
+    public ArchivedBookingQueryRepositoryImpl() {
+        super(ArchivedBooking.class);
+    }
+
+    @Override
+    public List<BookingDtoResponse> findDtoRange(Specification<ArchivedBooking> specification, Sort sort,
+                                                 long offset, int limit) {
+        return super.findDtoRange(specification, sort, offset, limit);
+    }
+
+    @Override
+    public Stream<BookingDtoResponse> streamDtos(Specification<ArchivedBooking> specification, Sort sort) {
+        return super.streamDtos(specification, sort);
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.ItemBookingCount;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Integer>,
+        JpaSpecificationExecutor<ArchivedBooking>, ArchivedBookingQueryRepository {
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<ArchivedBooking> findById(Integer id);
+
+    /**
+     * Копирует бронирования из bookings в архив одним INSERT ... SELECT, без загрузки сущностей.
+     */
+    @Modifying
+    @Query(value = "insert into bookings_archive (id, start_date, end_date, status, booker_id, item_id, version) " +
+            "select id, start_date, end_date, status, booker_id, item_id, version from bookings where id in (:ids)",
+            nativeQuery = true)
+    int copyFromBookings(@Param("ids") Collection<Integer> ids);
+
+    @Query("select b.item.id as itemId, count(b) as bookingCount from ArchivedBooking b " +
+            "where b.item.id in :itemIds and b.status = :state and b.end < :dateTime " +
+            "group by b.item.id")
+    List<ItemBookingCount> countBookingsOfItemsEndedBefore(@Param("itemIds") Collection<Integer> itemIds,
+                                                           @Param("dateTime") LocalDateTime dateTime,
+                                                           @Param("state") BookingState state);
+
+    /**
+     * Последние начавшиеся бронирования вещей в архиве, как {@link BookingRepository#findLastBookingsOfItems}.
+     */
+    @Query("select b from ArchivedBooking b " +
+            "where b.item.id in :itemIds and b.status = :state and b.start < :dateTime " +
+            "and b.start = (select max(lb.start) from ArchivedBooking lb " +
+            "where lb.item.id = b.item.id and lb.status = :state and lb.start < :dateTime)")
+    List<ArchivedBooking> findLastBookingsOfItems(@Param("itemIds") Collection<Integer> itemIds,
+                                                  @Param("dateTime") LocalDateTime dateTime,
+                                                  @Param("state") BookingState state);
+
+    ArchivedBooking findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(Integer itemId, LocalDateTime dateTime,
+                                                                                BookingState state);
+
+    boolean existsByBookerIdAndItemIdAndEndIsBefore(Integer userId, Integer itemId, LocalDateTime dateTime);
+}
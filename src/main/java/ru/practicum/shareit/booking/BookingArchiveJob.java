@@ -0,0 +1,83 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Переносит в bookings_archive бронирования, завершившиеся больше months месяцев назад.
+ * Перенос идёт порциями по batchSize строк с паузой между ними, как в {@link BookingExpiryJob}.
+ * Порции берутся от самых ранних по (end, id), а порог только растёт, поэтому даже после прерванного
+ * запуска все записи архива заканчиваются не позже любой записи bookings.
+ */
+@Slf4j
+@Component
+public class BookingArchiveJob {
+    private final BookingRepository bookingRepository;
+    private final BookingArchiver bookingArchiver;
+    private final int months;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    public BookingArchiveJob(BookingRepository bookingRepository,
+                             BookingArchiver bookingArchiver,
+                             @Value("${shareit.booking.archive.months:12}") int months,
+                             @Value("${shareit.booking.archive.batch-size:500}") int batchSize,
+                             @Value("${shareit.booking.archive.pause-ms:200}") long pauseMillis) {
+        if (months <= 0) {
+            throw new IllegalArgumentException("Срок хранения в bookings должен быть положительным");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер порции должен быть положительным");
+        }
+        this.bookingRepository = bookingRepository;
+        this.bookingArchiver = bookingArchiver;
+        this.months = months;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.archive.delay-ms:3600000}",
+            fixedDelayString = "${shareit.booking.archive.delay-ms:3600000}")
+    public void archiveFinishedBookings() {
+        int archived = archiveEndedBefore(LocalDateTime.now().minusMonths(months));
+        if (archived > 0) {
+            log.info("Перенесено в архив бронирований: {}", archived);
+        }
+    }
+
+    public int archiveEndedBefore(LocalDateTime dateTime) {
+        int archived = 0;
+        while (true) {
+            List<Integer> ids = bookingRepository.findIdsByEndBefore(dateTime, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return archived;
+            }
+
+            archived += bookingArchiver.archive(ids);
+
+            if (ids.size() < batchSize || !pause()) {
+                return archived;
+            }
+        }
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Архивация бронирований прервана");
+            return false;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+/**
+ * Переносит порцию бронирований в архив. Копирование и удаление выполняются в одной транзакции,
+ * поэтому бронирование всегда видно ровно в одной из таблиц.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingArchiver {
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+
+    @Transactional
+    public int archive(Collection<Integer> ids) {
+        archivedBookingRepository.copyFromBookings(ids);
+        return bookingRepository.deleteAllByIds(ids);
+    }
+}
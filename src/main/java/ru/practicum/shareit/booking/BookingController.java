@@ -1,11 +1,17 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoResponse;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.streaming.NdjsonWriter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -16,12 +22,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookingController {
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping
     public BookingDtoResponse create(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                     @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey,
                                      @RequestBody BookingDto bookingDto) {
-        Booking savedBooking = bookingService.createBooking(userId, bookingDto);
-        return BookingMapper.toDto(savedBooking);
+        return idempotencyStore.execute("bookings", userId, idempotencyKey, bookingDto,
+                () -> BookingMapper.toDto(bookingService.createBooking(userId, bookingDto)));
     }
 
     @PatchMapping("/{bookingId}")
@@ -45,8 +54,24 @@ public class BookingController {
                                                                   required = false,
                                                                   defaultValue = "ALL") String state,
                                                           @RequestParam(defaultValue = "0", name = "from") Integer from,
-                                                          @RequestParam(defaultValue = "1000000", name = "size") Integer size) {
-        return BookingMapper.toDto(bookingService.findAllBookingsOfUser(userId, state, from, size));
+                                                          @RequestParam(defaultValue = "1000000", name = "size") Integer size,
+                                                          @RequestParam(name = "after", required = false) String after,
+                                                          HttpServletResponse response) {
+        List<BookingDtoResponse> bookings = bookingService.findAllBookingsOfUser(userId, state, from, size, after);
+        setNextCursor(response, bookings, size);
+        return bookings;
+    }
+
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllBookingsOfUser(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                        @RequestParam(name = "state",
+                                                required = false,
+                                                defaultValue = "ALL") String state,
+                                        HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+        bookingService.streamAllBookingsOfUser(userId, state, writer::write);
+        writer.flush();
     }
 
     @GetMapping("/owner")
@@ -55,9 +80,31 @@ public class BookingController {
                                                                         required = false,
                                                                         defaultValue = "ALL") String state,
                                                                 @RequestParam(defaultValue = "0", name = "from") Integer from,
-                                                                @RequestParam(defaultValue = "1000000", name = "size") Integer size) {
-        return BookingMapper.toDto(bookingService.findAllBookingsOfOwnerItems(userId, state, from, size));
+                                                                @RequestParam(defaultValue = "1000000", name = "size") Integer size,
+                                                                @RequestParam(name = "after", required = false) String after,
+                                                                HttpServletResponse response) {
+        List<BookingDtoResponse> bookings = bookingService.findAllBookingsOfOwnerItems(userId, state, from, size,
+                after);
+        setNextCursor(response, bookings, size);
+        return bookings;
     }
 
+    @GetMapping(value = "/owner", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllBookingsOfOwnerItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                              @RequestParam(name = "state",
+                                                      required = false,
+                                                      defaultValue = "ALL") String state,
+                                              HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+        bookingService.streamAllBookingsOfOwnerItems(userId, state, writer::write);
+        writer.flush();
+    }
 
+    private void setNextCursor(HttpServletResponse response, List<BookingDtoResponse> bookings, Integer size) {
+        if (bookings.size() == size) {
+            BookingDtoResponse last = bookings.get(size - 1);
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, PageCursor.of(last.getEnd(), last.getId()).encode());
+        }
+    }
 }
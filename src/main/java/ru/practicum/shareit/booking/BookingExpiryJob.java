@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Переводит в CANCELED бронирования, которые так и остались в WAITING после начала.
+ * Обновление идёт порциями по batchSize строк, каждая порция — отдельный короткий UPDATE,
+ * между порциями выдерживается пауза, чтобы не держать долгих блокировок на bookings.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    private final BookingRepository bookingRepository;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            BookingTimelineCache bookingTimelineCache,
+                            @Value("${shareit.booking.expiry.batch-size:500}") int batchSize,
+                            @Value("${shareit.booking.expiry.pause-ms:200}") long pauseMillis) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер порции должен быть положительным");
+        }
+        this.bookingRepository = bookingRepository;
+        this.bookingTimelineCache = bookingTimelineCache;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.expiry.delay-ms:300000}",
+            fixedDelayString = "${shareit.booking.expiry.delay-ms:300000}")
+    public void expireWaitingBookings() {
+        int expired = expireStartedBefore(LocalDateTime.now());
+        if (expired > 0) {
+            log.info("Отменено просроченных бронирований: {}", expired);
+        }
+    }
+
+    public int expireStartedBefore(LocalDateTime dateTime) {
+        int expired = 0;
+        while (true) {
+            List<BookingInterval> bookings = bookingRepository.findIntervalsByStatusAndStartBefore(
+                    BookingState.WAITING, dateTime, PageRequest.of(0, batchSize));
+            if (bookings.isEmpty()) {
+                return expired;
+            }
+
+            List<Integer> ids = new ArrayList<>(bookings.size());
+            for (BookingInterval booking : bookings) {
+                ids.add(booking.getId());
+            }
+            expired += bookingRepository.updateStatus(ids, BookingState.WAITING, BookingState.CANCELED);
+            for (BookingInterval booking : bookings) {
+                bookingTimelineCache.remove(booking.getItemId(), booking.getId(), booking.getStart());
+            }
+
+            if (bookings.size() < batchSize || !pause()) {
+                return expired;
+            }
+        }
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Отмена просроченных бронирований прервана");
+            return false;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoForItem;
 import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.user.UserMapper;
@@ -34,6 +35,14 @@ public class BookingMapper {
         return new Booking(bookingDto.getStart(), bookingDto.getEnd());
     }
 
+    /**
+     * Запись архива в виде Booking только для чтения: копия не связана с контекстом и не сохраняется.
+     */
+    public static Booking toBooking(ArchivedBooking archivedBooking) {
+        return new Booking(archivedBooking.getId(), archivedBooking.getStart(), archivedBooking.getEnd(),
+                archivedBooking.getItem(), archivedBooking.getBooker(), archivedBooking.getStatus());
+    }
+
     public static BookingDtoForItem toItemDto(Booking booking) {
         return new BookingDtoForItem(
                 booking.getId(),
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingQueryRepository {
+    /**
+     * Возвращает одну страницу бронирований сразу в виде DTO, без отдельного запроса на подсчёт
+     * общего количества: сущности не создаются и не попадают в контекст.
+     */
+    List<BookingDtoResponse> findDtoPage(Specification<Booking> specification, Pageable pageable);
+
+    /**
+     * Читает бронирования курсором JDBC сразу в виде DTO. Поток нужно дочитать и закрыть внутри транзакции.
+     */
+    Stream<BookingDtoResponse> streamDtos(Specification<Booking> specification, Sort sort);
+
+    /**
+     * Перечитывает бронирование из базы. Нужен, когда контекст живёт дольше транзакции
+     * (open-in-view) и мог сохранить устаревшую копию.
+     */
+    void refresh(Booking booking);
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class BookingQueryRepositoryImpl extends FetchingQuerySupport<Booking> implements BookingQueryRepository {
+
+    public BookingQueryRepositoryImpl() {
+        super(Booking.class);
+    }
+
+    @Override
+    public List<BookingDtoResponse> findDtoPage(Specification<Booking> specification, Pageable pageable) {
+        return findDtoRange(specification, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    @Override
+    public Stream<BookingDtoResponse> streamDtos(Specification<Booking> specification, Sort sort) {
+        return super.streamDtos(specification, sort);
+    }
+
+    @Override
+    public void refresh(Booking booking) {
+        super.refresh(booking);
+    }
+}
@@ -1,64 +1,38 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookerItemPair;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.ItemBookingCount;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
-    List<Booking> findAllByBookerIdOrderByEndDesc(Integer userId);
+public interface BookingRepository extends JpaRepository<Booking, Integer>, JpaSpecificationExecutor<Booking>,
+        BookingQueryRepository {
+    @Override
+    @EntityGraph(Booking.DETAIL_GRAPH)
+    Optional<Booking> findById(Integer id);
 
-    Page<Booking> findAllByBookerId(Integer userId, Pageable pageable);
+    @Query("select b.item.id from Booking b where b.id = :bookingId")
+    Optional<Integer> findItemIdById(@Param("bookingId") Integer bookingId);
 
-    List<Booking> findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(Integer userId,
-                                                                               LocalDateTime dateTimeStart,
-                                                                               LocalDateTime dateTimeEnd);
+    List<Booking> findAllByItemIdAndStatusInAndEndIsAfter(Integer itemId, Collection<BookingState> states,
+                                                          LocalDateTime dateTime);
 
-    Page<Booking> findAllByBookerIdAndStartIsBeforeAndEndIsAfter(Integer userId,
-                                                                 LocalDateTime dateTimeStart,
-                                                                 LocalDateTime dateTimeEnd,
-                                                                 Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByEndDesc(Integer userId, LocalDateTime dateTime);
-
-    Page<Booking> findAllByBookerIdAndEndIsBefore(Integer userId, LocalDateTime dateTime, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndStartIsAfterOrderByEndDesc(Integer userId, LocalDateTime dateTime);
-
-    Page<Booking> findAllByBookerIdAndStartIsAfter(Integer userId, LocalDateTime dateTime, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndStatusOrderByEndDesc(Integer userId, BookingState state);
-
-    Page<Booking> findAllByBookerIdAndStatus(Integer userId, BookingState state, Pageable pageable);
-
-    List<Booking> findAllByItemIdInOrderByEndDesc(Set<Integer> itemsIds);
-
-    Page<Booking> findAllByItemIdIn(Set<Integer> itemsIds, Pageable pageable);
-
-    List<Booking> findAllByItemIdInAndStartIsBeforeAndEndIsAfterOrderByEndDesc(Set<Integer> itemsIds,
-                                                                               LocalDateTime dateTimeStart,
-                                                                               LocalDateTime dateTimeEnd);
-
-    Page<Booking> findAllByItemIdInAndStartIsBeforeAndEndIsAfter(Set<Integer> itemsIds,
-                                                                 LocalDateTime dateTimeStart,
-                                                                 LocalDateTime dateTimeEnd, Pageable pageable);
-
-    List<Booking> findAllByItemIdInAndEndIsBeforeOrderByEndDesc(Set<Integer> itemsIds, LocalDateTime dateTime);
-
-    Page<Booking> findAllByItemIdInAndEndIsBefore(Set<Integer> itemsIds, LocalDateTime dateTime, Pageable pageable);
-
-    List<Booking> findAllByItemIdInAndStartIsAfterOrderByEndDesc(Set<Integer> itemsIds, LocalDateTime dateTime);
-
-    Page<Booking> findAllByItemIdInAndStartIsAfter(Set<Integer> itemsIds, LocalDateTime dateTime, Pageable pageable);
-
-    List<Booking> findAllByItemIdInAndStatusOrderByEndDesc(Set<Integer> itemsIds, BookingState state);
-
-    Page<Booking> findAllByItemIdInAndStatus(Set<Integer> itemsIds, BookingState state, Pageable pageable);
+    boolean existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(Integer itemId, Collection<BookingState> states,
+                                                                   LocalDateTime end, LocalDateTime start);
 
     Booking findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(Integer itemId, LocalDateTime dateTime,
                                                                         BookingState state);
@@ -66,5 +40,69 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
     Booking findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(Integer itemId, LocalDateTime dateTime,
                                                                       BookingState state);
 
+    /**
+     * Для карточки вещи нужны только id вещи и автора, поэтому связи не подтягиваются.
+     */
+    @Query("select b from Booking b " +
+            "where b.item.id in :itemIds and b.status = :state and b.start < :dateTime " +
+            "and b.start = (select max(lb.start) from Booking lb " +
+            "where lb.item.id = b.item.id and lb.status = :state and lb.start < :dateTime)")
+    List<Booking> findLastBookingsOfItems(@Param("itemIds") Collection<Integer> itemIds,
+                                          @Param("dateTime") LocalDateTime dateTime,
+                                          @Param("state") BookingState state);
+
+    @Query("select b from Booking b " +
+            "where b.item.id in :itemIds and b.status = :state and b.start > :dateTime " +
+            "and b.start = (select min(nb.start) from Booking nb " +
+            "where nb.item.id = b.item.id and nb.status = :state and nb.start > :dateTime)")
+    List<Booking> findNextBookingsOfItems(@Param("itemIds") Collection<Integer> itemIds,
+                                          @Param("dateTime") LocalDateTime dateTime,
+                                          @Param("state") BookingState state);
+
+    @Query("select b.item.id as itemId, count(b) as bookingCount from Booking b " +
+            "where b.item.id in :itemIds and b.status = :state and b.end < :dateTime " +
+            "group by b.item.id")
+    List<ItemBookingCount> countBookingsOfItemsEndedBefore(@Param("itemIds") Collection<Integer> itemIds,
+                                                           @Param("dateTime") LocalDateTime dateTime,
+                                                           @Param("state") BookingState state);
+
+    @Query("select b.id as id, b.item.id as itemId, b.start as start from Booking b " +
+            "where b.status = :state and b.start < :dateTime order by b.id")
+    List<BookingInterval> findIntervalsByStatusAndStartBefore(@Param("state") BookingState state,
+                                                              @Param("dateTime") LocalDateTime dateTime,
+                                                              Pageable pageable);
+
+    /**
+     * Меняет статус одним UPDATE в отдельной транзакции. Версия увеличивается, чтобы
+     * параллельное подтверждение устаревшей копии бронирования завершилось конфликтом.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Booking b set b.status = :newState, b.version = b.version + 1 " +
+            "where b.id in :ids and b.status = :state")
+    int updateStatus(@Param("ids") Collection<Integer> ids,
+                     @Param("state") BookingState state,
+                     @Param("newState") BookingState newState);
+
+    /**
+     * Id бронирований, закончившихся раньше dateTime, от самых ранних. Порции архивации выбираются
+     * в порядке (end, id), поэтому после каждой порции архив целиком предшествует bookings.
+     */
+    @Query("select b.id from Booking b where b.end < :dateTime order by b.end, b.id")
+    List<Integer> findIdsByEndBefore(@Param("dateTime") LocalDateTime dateTime, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Booking b where b.id in :ids")
+    int deleteAllByIds(@Param("ids") Collection<Integer> ids);
+
     Booking findFirst1ByBookerIdAndItemIdAndEndIsBefore(Integer userId, Integer itemId, LocalDateTime dateTime);
+
+    /**
+     * Пары бронирований, закончившихся в [from, to), от самых поздних к ранним; повторы не убираются.
+     */
+    @Query("select b.booker.id as bookerId, b.item.id as itemId from Booking b " +
+            "where b.end >= :from and b.end < :to order by b.end desc")
+    List<BookerItemPair> findBookerItemPairsByEndBetween(@Param("from") LocalDateTime from,
+                                                         @Param("to") LocalDateTime to,
+                                                         Pageable pageable);
 }
@@ -5,32 +5,54 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingSearchState;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.exception.ConflictValidationException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.exception.IncorrectStateException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.locking.StripedLock;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingService {
+    private static final int ITEM_LOCK_STRIPES = 64;
+    private static final Sort SORT_BY_END_DESC = Sort.by(Sort.Direction.DESC, "end", "id");
+
     private final ItemService itemService;
     private final UserService userService;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedLock itemLocks = new StripedLock(ITEM_LOCK_STRIPES);
 
+    @Transactional
     public Booking createBooking(Integer userId, BookingDto bookingDto) {
         validateRequiredFields(bookingDto);
         User user = userService.findUserById(userId);
@@ -41,11 +63,41 @@ public class BookingService {
         booking.setBooker(user);
         booking.setItem(item);
         booking.setStatus(BookingState.WAITING);
-        return bookingRepository.save(booking);
+
+        Lock lock = itemLocks.get(item.getId());
+        lock.lock();
+        try {
+            validateNoOverlap(bookingTimelineCache.get(item.getId()), booking);
+            Booking savedBooking = bookingRepository.save(booking);
+            bookingTimelineCache.add(savedBooking);
+            return savedBooking;
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * До взятия блокировки читается только id вещи. Чтение, проверка статуса и сохранение
+     * выполняются под блокировкой в отдельной транзакции, которая фиксируется до её снятия.
+     */
     public Booking updateBooking(Integer userId, Integer bookingId, Boolean isApproved) {
-        Booking booking = findById(bookingId);
+        Lock lock = itemLocks.get(findItemId(bookingId));
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> approveBooking(userId, bookingId, isApproved));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Booking approveBooking(Integer userId, Integer bookingId, Boolean isApproved) {
+        // архив здесь не читается: перенесённое бронирование уже отклонено в findItemId
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> {
+            log.error("Бронирования с Id = {} не существует", bookingId);
+            throw new EntityNotFoundException("Бронирования с таким Id не существует");
+        });
+        // при open-in-view findById может вернуть копию, прочитанную до блокировки
+        bookingRepository.refresh(booking);
         if (!booking.getItem().getOwner().getId().equals(userId)) {
             log.error("Подтверждение или отклонение запроса на бронирование " +
                     "может быть выполнено только владельцем вещи");
@@ -63,15 +115,40 @@ public class BookingService {
             booking.setStatus(BookingState.REJECTED);
         }
 
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        if (isApproved) {
+            bookingTimelineCache.add(savedBooking);
+        } else {
+            bookingTimelineCache.remove(savedBooking);
+        }
+        return savedBooking;
     }
 
+    /**
+     * Бронирование из bookings или, если его уже перенесли, из архива. Архивация копирует и удаляет
+     * в одной транзакции, поэтому бронирование, не найденное в bookings, уже видно в архиве.
+     */
     public Booking findById(Integer bookingId) {
         if (bookingId == null) {
             log.error("Id бронирования не заполнен");
             throw new ValidationException("Id бронирования не заполнен");
         }
-        return bookingRepository.findById(bookingId).orElseThrow(() -> {
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        if (booking.isPresent()) {
+            return booking.get();
+        }
+        return archivedBookingRepository.findById(bookingId).map(BookingMapper::toBooking).orElseThrow(() -> {
+            log.error("Бронирования с Id = {} не существует", bookingId);
+            throw new EntityNotFoundException("Бронирования с таким Id не существует");
+        });
+    }
+
+    private Integer findItemId(Integer bookingId) {
+        if (bookingId == null) {
+            log.error("Id бронирования не заполнен");
+            throw new ValidationException("Id бронирования не заполнен");
+        }
+        return bookingRepository.findItemIdById(bookingId).orElseThrow(() -> {
             log.error("Бронирования с Id = {} не существует", bookingId);
             throw new EntityNotFoundException("Бронирования с таким Id не существует");
         });
@@ -86,27 +163,129 @@ public class BookingService {
         return booking;
     }
 
-    public List<Booking> findAllBookingsOfUser(Integer userId, String state, Integer from, Integer size) {
-        userService.findUserById(userId);
-        BookingSearchState bookingSearchState = validateBookingSearchState(state);
-        Pageable page = getPageable(from, size);
+    public List<BookingDtoResponse> findAllBookingsOfUser(Integer userId, String state, Integer from, Integer size) {
+        return findAllBookingsOfUser(userId, state, from, size, null);
+    }
+
+    public List<BookingDtoResponse> findAllBookingsOfUser(Integer userId, String state, Integer from, Integer size,
+                                                          String after) {
+        return findBookings(BookingRole.BOOKER, userId, state, from, size, after);
+    }
+
+    public List<BookingDtoResponse> findAllBookingsOfOwnerItems(Integer userId, String state, Integer from,
+                                                                Integer size) {
+        return findAllBookingsOfOwnerItems(userId, state, from, size, null);
+    }
+
+    public List<BookingDtoResponse> findAllBookingsOfOwnerItems(Integer userId, String state, Integer from,
+                                                                Integer size, String after) {
+        return findBookings(BookingRole.OWNER, userId, state, from, size, after);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllBookingsOfUser(Integer userId, String state, Consumer<BookingDtoResponse> consumer) {
+        streamBookings(BookingRole.BOOKER, userId, state, consumer);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllBookingsOfOwnerItems(Integer userId, String state, Consumer<BookingDtoResponse> consumer) {
+        streamBookings(BookingRole.OWNER, userId, state, consumer);
+    }
+
+    /**
+     * Списки только читаются, поэтому выбираются сразу в DTO, без сущностей и их снимков в контексте.
+     */
+    private List<BookingDtoResponse> findBookings(BookingRole role, Integer userId, String state,
+                                                  Integer from, Integer size, String after) {
+        BookingSearchState searchState = validateSearchParameters(role, userId, state);
+        Pageable page;
+        PageCursor cursor = null;
+        if (after == null) {
+            page = getPageable(from, size);
+        } else {
+            page = getPageAfter(size);
+            cursor = decodeCursor(after);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Specification<Booking> where = buildSpecification(role, userId, searchState, now, cursor);
+        List<BookingDtoResponse> bookings = bookingRepository.findDtoPage(where, page);
+        if (bookings.size() == page.getPageSize() || !reachesArchive(searchState)) {
+            return bookings;
+        }
+        return appendArchived(bookings, where, page,
+                buildSpecification(role, userId, searchState, now, cursor));
+    }
+
+    /**
+     * Дополняет неполную страницу записями архива. Все записи архива заканчиваются раньше
+     * любой записи bookings, поэтому в порядке end desc архив продолжает bookings. Если страница
+     * bookings пуста, смещение в архиве равно смещению страницы минус число подходящих записей
+     * в bookings; этот подсчёт нужен только для страниц целиком за пределами bookings.
+     */
+    private List<BookingDtoResponse> appendArchived(List<BookingDtoResponse> bookings, Specification<Booking> where,
+                                                    Pageable page, Specification<ArchivedBooking> archiveWhere) {
+        long archiveOffset = 0;
+        if (bookings.isEmpty() && page.getOffset() > 0) {
+            archiveOffset = page.getOffset() - bookingRepository.count(where);
+        }
+        List<BookingDtoResponse> result = new ArrayList<>(page.getPageSize());
+        result.addAll(bookings);
+        result.addAll(archivedBookingRepository.findDtoRange(archiveWhere, SORT_BY_END_DESC, archiveOffset,
+                page.getPageSize() - bookings.size()));
+        return result;
+    }
+
+    private void streamBookings(BookingRole role, Integer userId, String state,
+                                Consumer<BookingDtoResponse> consumer) {
+        BookingSearchState searchState = validateSearchParameters(role, userId, state);
+        LocalDateTime now = LocalDateTime.now();
+        Specification<Booking> where = buildSpecification(role, userId, searchState, now, null);
+        try (Stream<BookingDtoResponse> bookings = bookingRepository.streamDtos(where, SORT_BY_END_DESC)) {
+            bookings.forEach(consumer);
+        }
+        if (!reachesArchive(searchState)) {
+            return;
+        }
+        Specification<ArchivedBooking> archiveWhere = buildSpecification(role, userId, searchState, now, null);
+        try (Stream<BookingDtoResponse> bookings = archivedBookingRepository.streamDtos(archiveWhere,
+                SORT_BY_END_DESC)) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    private BookingSearchState validateSearchParameters(BookingRole role, Integer userId, String state) {
+        if (role == BookingRole.OWNER) {
+            validateOwnerHasItems(userId);
+        } else {
+            userService.findUserById(userId);
+        }
+        return validateBookingSearchState(state);
+    }
 
-        switch (bookingSearchState) {
-            case CURRENT:
-                return bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfter(userId,
-                        LocalDateTime.now(), LocalDateTime.now(), page).getContent();
-            case PAST:
-                return bookingRepository.findAllByBookerIdAndEndIsBefore(userId, LocalDateTime.now(), page).getContent();
-            case FUTURE:
-                return bookingRepository.findAllByBookerIdAndStartIsAfter(userId, LocalDateTime.now(), page).getContent();
-            case WAITING:
-                return bookingRepository.findAllByBookerIdAndStatus(userId, BookingState.WAITING, page).getContent();
-            case REJECTED:
-                return bookingRepository.findAllByBookerIdAndStatus(userId, BookingState.REJECTED, page).getContent();
-            case ALL:
-            default:
-                return bookingRepository.findAllByBookerId(userId, page).getContent();
+    /**
+     * Условие выборки для роли пользователя и состояния бронирования. Текущее время
+     * передаётся снаружи, чтобы все сравнения дат, в том числе в архиве, шли с одним и тем же моментом.
+     */
+    private <T> Specification<T> buildSpecification(BookingRole role, Integer userId, BookingSearchState state,
+                                                    LocalDateTime now, PageCursor cursor) {
+        Specification<T> where;
+        if (role == BookingRole.OWNER) {
+            where = BookingSpecifications.itemOwnerIdEquals(userId);
+        } else {
+            where = BookingSpecifications.bookerIdEquals(userId);
         }
+        where = where.and(BookingSpecifications.inSearchState(state, now));
+        if (cursor != null) {
+            where = where.and(BookingSpecifications.after(cursor));
+        }
+        return where;
+    }
+
+    /**
+     * В архиве только давно завершённые бронирования, поэтому текущие и будущие там искать незачем.
+     */
+    private static boolean reachesArchive(BookingSearchState state) {
+        return state != BookingSearchState.CURRENT && state != BookingSearchState.FUTURE;
     }
 
     private Pageable getPageable(Integer from, Integer size) {
@@ -115,40 +294,31 @@ public class BookingService {
             throw new ValidationException("Некорректные значения параметров from/size");
         }
 
-        Sort sortByEnd = Sort.by(Sort.Direction.DESC, "end");
-        Pageable page = PageRequest.of(from / size, size, sortByEnd);
+        Pageable page = PageRequest.of(from / size, size, SORT_BY_END_DESC);
         return page;
     }
 
-    public List<Booking> findAllBookingsOfOwnerItems(Integer userId, String state, Integer from, Integer size) {
-        List<Item> items = itemService.findAllItemsOfUser(userId);
-        if (items.isEmpty()) {
-            log.error("У пользователя нет вещей");
-            throw new ValidationException("У пользователя нет вещей");
-        }
-        Set<Integer> itemsIds = new HashSet<>();
-        for (Item item : items) {
-            itemsIds.add(item.getId());
+    private Pageable getPageAfter(Integer size) {
+        if (size <= 0) {
+            log.error("Некорректное значение параметра size={}", size);
+            throw new ValidationException("Некорректное значение параметра size");
         }
-        BookingSearchState bookingSearchState = validateBookingSearchState(state);
+        return PageRequest.of(0, size, SORT_BY_END_DESC);
+    }
 
-        Pageable page = getPageable(from, size);
+    private PageCursor decodeCursor(String after) {
+        PageCursor cursor = PageCursor.decode(after);
+        if (cursor.getEnd() == null) {
+            log.error("Курсор не содержит даты окончания бронирования: {}", after);
+            throw new ValidationException("Некорректное значение параметра after");
+        }
+        return cursor;
+    }
 
-        switch (bookingSearchState) {
-            case CURRENT:
-                return bookingRepository.findAllByItemIdInAndStartIsBeforeAndEndIsAfter(itemsIds,
-                        LocalDateTime.now(), LocalDateTime.now(), page).getContent();
-            case PAST:
-                return bookingRepository.findAllByItemIdInAndEndIsBefore(itemsIds, LocalDateTime.now(), page).getContent();
-            case FUTURE:
-                return bookingRepository.findAllByItemIdInAndStartIsAfter(itemsIds, LocalDateTime.now(), page).getContent();
-            case WAITING:
-                return bookingRepository.findAllByItemIdInAndStatus(itemsIds, BookingState.WAITING, page).getContent();
-            case REJECTED:
-                return bookingRepository.findAllByItemIdInAndStatus(itemsIds, BookingState.REJECTED, page).getContent();
-            case ALL:
-            default:
-                return bookingRepository.findAllByItemIdIn(itemsIds, page).getContent();
+    private void validateOwnerHasItems(Integer userId) {
+        if (!itemService.hasItemsOfUser(userId)) {
+            log.error("У пользователя нет вещей");
+            throw new ValidationException("У пользователя нет вещей");
         }
     }
 
@@ -183,6 +353,20 @@ public class BookingService {
         }
     }
 
+    /**
+     * Сначала проверяется таймлайн вещи в памяти, затем то же условие повторяется в базе,
+     * чтобы не пропустить бронирования, созданные в обход кэша.
+     */
+    private void validateNoOverlap(BookingTimeline timeline, Booking booking) {
+        if (timeline.overlaps(booking.getStart(), booking.getEnd())
+                || bookingRepository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(booking.getItem().getId(),
+                BookingTimelineCache.BLOCKING_STATES, booking.getEnd(), booking.getStart())) {
+            log.warn("Вещь с Id = {} уже забронирована на период с {} по {}", booking.getItem().getId(),
+                    booking.getStart(), booking.getEnd());
+            throw new ConflictValidationException("Вещь уже забронирована на эти даты");
+        }
+    }
+
     private void validateRequiredFields(BookingDto bookingDto) {
         if (bookingDto.getStart() == null || bookingDto.getEnd() == null || bookingDto.getItemId() == null) {
             log.warn("Не заполнены обязательные поля");
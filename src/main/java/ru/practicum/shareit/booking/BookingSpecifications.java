@@ -0,0 +1,77 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.BookingSearchState;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageCursor;
+
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+
+/**
+ * Условия выборки бронирований. Условия не зависят от типа сущности, поэтому одни и те же
+ * применяются и к {@link ru.practicum.shareit.booking.model.Booking}, и к архиву.
+ */
+public class BookingSpecifications {
+    public static <T> Specification<T> bookerIdEquals(Integer userId) {
+        return (root, query, builder) -> builder.equal(root.get("booker").get("id"), userId);
+    }
+
+    public static <T> Specification<T> itemOwnerIdEquals(Integer ownerId) {
+        return (root, query, builder) -> builder.equal(itemOf(root).get("owner").get("id"), ownerId);
+    }
+
+    public static <T> Specification<T> inSearchState(BookingSearchState state, LocalDateTime now) {
+        return (root, query, builder) -> {
+            switch (state) {
+                case CURRENT:
+                    return builder.and(builder.lessThan(root.<LocalDateTime>get("start"), now),
+                            builder.greaterThan(root.<LocalDateTime>get("end"), now));
+                case PAST:
+                    return builder.lessThan(root.<LocalDateTime>get("end"), now);
+                case FUTURE:
+                    return builder.greaterThan(root.<LocalDateTime>get("start"), now);
+                case WAITING:
+                    return builder.equal(root.get("status"), BookingState.WAITING);
+                case REJECTED:
+                    return builder.equal(root.get("status"), BookingState.REJECTED);
+                case ALL:
+                default:
+                    return null;
+            }
+        };
+    }
+
+    /**
+     * Записи, следующие за курсором в порядке end desc, id desc.
+     */
+    public static <T> Specification<T> after(PageCursor cursor) {
+        return (root, query, builder) -> builder.or(
+                builder.lessThan(root.<LocalDateTime>get("end"), cursor.getEnd()),
+                builder.and(builder.equal(root.<LocalDateTime>get("end"), cursor.getEnd()),
+                        builder.lessThan(root.<Integer>get("id"), cursor.getId())));
+    }
+
+    /**
+     * Соединение с вещью: если запрос уже соединяется с вещью через fetch или join, используется оно,
+     * чтобы в SQL не появилось второго соединения с items.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Join<T, Item> itemOf(Root<T> root) {
+        for (Fetch<T, ?> fetch : root.getFetches()) {
+            if (fetch.getAttribute().getName().equals("item") && fetch instanceof Join) {
+                return (Join<T, Item>) fetch;
+            }
+        }
+        for (Join<T, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals("item") && join.getJoinType() == JoinType.INNER) {
+                return (Join<T, Item>) join;
+            }
+        }
+        return root.join("item");
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.streaming.StreamingRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Общие запросы по спецификации для bookings и bookings_archive: поля бронирования, вещи и автора
+ * выбираются одним запросом сразу в {@link BookingDtoResponse} без создания сущностей.
+ */
+abstract class FetchingQuerySupport<T> {
+    private final Class<T> domainClass;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    FetchingQuerySupport(Class<T> domainClass) {
+        this.domainClass = domainClass;
+    }
+
+    void refresh(T entity) {
+        entityManager.refresh(entity);
+    }
+
+    List<BookingDtoResponse> findDtoRange(Specification<T> specification, Sort sort, long offset, int limit) {
+        return createDtoQuery(specification, sort)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    Stream<BookingDtoResponse> streamDtos(Specification<T> specification, Sort sort) {
+        return createDtoQuery(specification, sort)
+                .setHint(QueryHints.HINT_FETCH_SIZE, StreamingRepository.FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private TypedQuery<BookingDtoResponse> createDtoQuery(Specification<T> specification, Sort sort) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingDtoResponse> query = builder.createQuery(BookingDtoResponse.class);
+        Root<T> root = query.from(domainClass);
+        Join<T, Item> item = root.join("item");
+        Join<T, User> booker = root.join("booker");
+        Join<Item, ItemRequest> request = item.join("request", JoinType.LEFT);
+        query.select(builder.construct(BookingDtoResponse.class,
+                root.get("id"), root.get("start"), root.get("end"),
+                item.get("id"), item.get("name"), item.get("description"), item.get("available"), request.get("id"),
+                booker.get("id"), booker.get("email"), booker.get("name"),
+                root.get("status")));
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        return entityManager.createQuery(query);
+    }
+}
@@ -19,4 +19,16 @@ public class BookingDtoResponse {
     private ItemDto item;
     private UserDto booker;
     private BookingState status;
+
+    /**
+     * Конструктор для выборки сразу в DTO: вещь и автор передаются плоским списком полей,
+     * потому что вложенные конструкторы в запросе не поддерживаются.
+     */
+    public BookingDtoResponse(Integer id, LocalDateTime start, LocalDateTime end,
+                              Integer itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                              Integer itemRequestId, Integer bookerId, String bookerEmail, String bookerName,
+                              BookingState status) {
+        this(id, start, end, new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemRequestId),
+                new UserDto(bookerId, bookerEmail, bookerName), status);
+    }
 }
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking.finished;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookerItemPair;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Пары (пользователь, вещь), у которых уже есть завершившееся бронирование. Такая пара
+ * никогда не становится неверной, поэтому положительному ответу можно верить без базы,
+ * а отсутствие пары означает только, что нужно спросить базу.
+ * <p>
+ * Пары хранятся в двух поколениях по capacity / 2 ключей: когда текущее поколение заполняется,
+ * старое очищается и становится текущим. Найденная в старом поколении пара переносится в текущее,
+ * так что вытесняются давно не запрашивавшиеся пары. Кэш пополняется после проверки в базе
+ * и по расписанию — бронированиями, закончившимися с прошлой загрузки.
+ */
+@Slf4j
+@Component
+public class FinishedBookingCache {
+    private final BookingRepository bookingRepository;
+    private final int capacity;
+    private LongHashSet recent;
+    private LongHashSet previous;
+    private volatile LocalDateTime loadedUntil = LocalDateTime.now();
+
+    public FinishedBookingCache(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.finished.capacity:100000}") int capacity) {
+        if (capacity < 2 || capacity > LongHashSet.MAX_SIZE) {
+            throw new IllegalArgumentException("Ёмкость кэша должна быть от 2 до " + LongHashSet.MAX_SIZE);
+        }
+        this.bookingRepository = bookingRepository;
+        this.capacity = capacity;
+        this.recent = new LongHashSet(capacity / 2);
+        this.previous = new LongHashSet(capacity / 2);
+    }
+
+    public synchronized boolean contains(Integer bookerId, Integer itemId) {
+        long key = key(bookerId, itemId);
+        if (recent.contains(key)) {
+            return true;
+        }
+        if (previous.contains(key)) {
+            put(key);
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void add(Integer bookerId, Integer itemId) {
+        put(key(bookerId, itemId));
+    }
+
+    public synchronized int size() {
+        return recent.size() + previous.size();
+    }
+
+    @Scheduled(initialDelayString = "${shareit.booking.finished.delay-ms:60000}",
+            fixedDelayString = "${shareit.booking.finished.delay-ms:60000}")
+    public void loadRecentlyFinished() {
+        int loaded = loadFinishedBefore(LocalDateTime.now());
+        if (loaded > 0) {
+            log.debug("В кэш завершённых бронирований добавлено пар: {}", loaded);
+        }
+    }
+
+    /**
+     * Добавляет пары бронирований, закончившихся между прошлой загрузкой и dateTime.
+     * Загружается не больше capacity самых поздних пар: остальные кэш всё равно бы вытеснил.
+     */
+    public int loadFinishedBefore(LocalDateTime dateTime) {
+        LocalDateTime from = loadedUntil;
+        if (!dateTime.isAfter(from)) {
+            return 0;
+        }
+        List<BookerItemPair> pairs = bookingRepository.findBookerItemPairsByEndBetween(from, dateTime,
+                PageRequest.of(0, capacity));
+        synchronized (this) {
+            for (int i = pairs.size() - 1; i >= 0; i--) {
+                put(key(pairs.get(i).getBookerId(), pairs.get(i).getItemId()));
+            }
+        }
+        loadedUntil = dateTime;
+        return pairs.size();
+    }
+
+    private void put(long key) {
+        if (recent.contains(key)) {
+            return;
+        }
+        if (recent.isFull()) {
+            LongHashSet oldest = previous;
+            oldest.clear();
+            previous = recent;
+            recent = oldest;
+        }
+        recent.add(key);
+    }
+
+    private static long key(Integer bookerId, Integer itemId) {
+        return ((long) bookerId << 32) | (itemId & 0xFFFFFFFFL);
+    }
+}
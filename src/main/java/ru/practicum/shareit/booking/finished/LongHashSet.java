@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking.finished;
+
+import java.util.Arrays;
+
+/**
+ * Множество long-ключей фиксированной ёмкости на одном массиве long[] с открытой адресацией
+ * и линейным пробированием, без упаковки ключей в Long. Таблица заполняется не больше чем наполовину.
+ * Ключ 0 обозначает пустую ячейку и не может быть добавлен. Удаление отдельных ключей
+ * не поддерживается, только {@link #clear()}. Класс не потокобезопасен.
+ */
+public class LongHashSet {
+    public static final int MAX_SIZE = 1 << 29;
+
+    private static final long EMPTY = 0L;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final long[] keys;
+    private final int maxSize;
+    private final int shift;
+    private int size;
+
+    public LongHashSet(int maxSize) {
+        if (maxSize <= 0 || maxSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Размер множества должен быть от 1 до " + MAX_SIZE);
+        }
+        int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.maxSize = maxSize;
+        this.shift = Long.numberOfLeadingZeros(capacity - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == maxSize;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        for (int i = indexOf(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Добавляет ключ и возвращает false, если он уже был в множестве.
+     *
+     * @throws IllegalStateException если множество заполнено, а ключа в нём нет
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Ключ 0 зарезервирован под пустую ячейку");
+        }
+        int mask = keys.length - 1;
+        int i = indexOf(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Множество заполнено");
+        }
+        keys[i] = key;
+        size++;
+        return true;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    private int indexOf(long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+}
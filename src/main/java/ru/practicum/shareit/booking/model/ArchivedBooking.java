@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование, перенесённое из bookings в архив. Id сохраняется прежним,
+ * поэтому записи архива сортируются вместе с бронированиями из bookings.
+ */
+@Data
+@NoArgsConstructor
+
+@Entity
+@Table(name = "bookings_archive")
+public class ArchivedBooking {
+    @Id
+    private Integer id;
+
+    @Column(name = "start_date")
+    private LocalDateTime start;
+
+    @Column(name = "end_date")
+    private LocalDateTime end;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id")
+    private User booker;
+
+    private BookingState status;
+
+    private Integer version;
+}
@@ -13,11 +13,19 @@ import java.time.LocalDateTime;
 @Data
 @RequiredArgsConstructor
 @NoArgsConstructor
-@AllArgsConstructor
 
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")
+})
 public class Booking {
+    /**
+     * Вещь и автор бронирования, нужные для {@link ru.practicum.shareit.booking.dto.BookingDtoResponse}.
+     */
+    public static final String DETAIL_GRAPH = "Booking.detail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -30,13 +38,25 @@ public class Booking {
     @NonNull
     private LocalDateTime end;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     private User booker;
 
     private BookingState status;
+
+    @Version
+    private Integer version;
+
+    public Booking(Integer id, LocalDateTime start, LocalDateTime end, Item item, User booker, BookingState status) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.item = item;
+        this.booker = booker;
+        this.status = status;
+    }
 }
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking.timeline;
+
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Занятые интервалы одной вещи: бронирования в статусах WAITING и APPROVED.
+ * Проверку пересечения и сохранение бронирования вызывающий код выполняет под блокировкой вещи.
+ */
+public class BookingTimeline {
+    private final IntervalTree intervals = new IntervalTree();
+    private final Map<Integer, BookingState> statuses = new HashMap<>();
+    private volatile long lastAccess;
+
+    public synchronized boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return intervals.overlaps(start, end);
+    }
+
+    /**
+     * Свободные промежутки периода [from, to) между подтверждёнными бронированиями.
+     * Бронирования обходятся в порядке начала, поэтому достаточно одного прохода.
+     */
+    public synchronized List<TimeSlotDto> findFreeSlots(LocalDateTime from, LocalDateTime to) {
+        FreeSlotSweep sweep = new FreeSlotSweep(from);
+        intervals.forEachOverlapping(from, to, sweep);
+        return sweep.finish(to);
+    }
+
+    public synchronized void add(Booking booking) {
+        intervals.add(booking.getId(), booking.getStart(), booking.getEnd());
+        statuses.put(booking.getId(), booking.getStatus());
+    }
+
+    public boolean remove(Booking booking) {
+        return remove(booking.getId(), booking.getStart());
+    }
+
+    public synchronized boolean remove(Integer bookingId, LocalDateTime start) {
+        statuses.remove(bookingId);
+        return intervals.remove(bookingId, start);
+    }
+
+    /**
+     * Удаляет бронирования, закончившиеся не позже dateTime, и возвращает их количество.
+     * Они уже не могут пересечься с новым бронированием.
+     */
+    public synchronized int removeEndedBefore(LocalDateTime dateTime) {
+        List<Integer> ids = new ArrayList<>();
+        List<LocalDateTime> starts = new ArrayList<>();
+        intervals.forEachOverlapping(LocalDateTime.MIN, dateTime, (id, start, end) -> {
+            if (!end.isAfter(dateTime)) {
+                ids.add(id);
+                starts.add(start);
+            }
+        });
+        for (int i = 0; i < ids.size(); i++) {
+            remove(ids.get(i), starts.get(i));
+        }
+        return ids.size();
+    }
+
+    public synchronized int size() {
+        return intervals.size();
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch(long time) {
+        lastAccess = time;
+    }
+
+    private class FreeSlotSweep implements IntervalTree.IntervalConsumer {
+        private final List<TimeSlotDto> slots = new ArrayList<>();
+        private LocalDateTime freeFrom;
+
+        FreeSlotSweep(LocalDateTime from) {
+            this.freeFrom = from;
+        }
+
+        @Override
+        public void accept(int id, LocalDateTime start, LocalDateTime end) {
+            if (statuses.get(id) != BookingState.APPROVED) {
+                return;
+            }
+            if (start.isAfter(freeFrom)) {
+                slots.add(new TimeSlotDto(freeFrom, start));
+            }
+            if (end.isAfter(freeFrom)) {
+                freeFrom = end;
+            }
+        }
+
+        List<TimeSlotDto> finish(LocalDateTime to) {
+            if (freeFrom.isBefore(to)) {
+                slots.add(new TimeSlotDto(freeFrom, to));
+            }
+            return slots;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.shareit.booking.timeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Кэш занятых интервалов по вещам. Таймлайн вещи загружается из базы при первом обращении:
+ * берутся только бронирования, которые ещё не закончились, потому что новое бронирование
+ * не может начинаться в прошлом. По той же причине закончившиеся бронирования удаляются
+ * из таймлайна при чтении, а таймлайны вещей, к которым не обращались дольше idle,
+ * вытесняются по расписанию и при следующем обращении загружаются заново.
+ */
+@Slf4j
+@Component
+public class BookingTimelineCache {
+    public static final List<BookingState> BLOCKING_STATES =
+            Collections.unmodifiableList(Arrays.asList(BookingState.WAITING, BookingState.APPROVED));
+
+    private final BookingRepository bookingRepository;
+    private final long idleNanos;
+    private final LongSupplier clock;
+    private final Supplier<LocalDateTime> now;
+    private final ConcurrentMap<Integer, BookingTimeline> timelines = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingTimelineCache(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.timeline.idle-ms:600000}") long idleMillis) {
+        this(bookingRepository, idleMillis, System::nanoTime, LocalDateTime::now);
+    }
+
+    BookingTimelineCache(BookingRepository bookingRepository, long idleMillis,
+                         LongSupplier clock, Supplier<LocalDateTime> now) {
+        if (idleMillis <= 0) {
+            throw new IllegalArgumentException("Время жизни таймлайна должно быть положительным");
+        }
+        this.bookingRepository = bookingRepository;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.clock = clock;
+        this.now = now;
+    }
+
+    public BookingTimeline get(Integer itemId) {
+        BookingTimeline timeline = timelines.get(itemId);
+        if (timeline != null) {
+            timeline.removeEndedBefore(now.get());
+        } else {
+            BookingTimeline loaded = load(itemId);
+            timeline = timelines.putIfAbsent(itemId, loaded);
+            if (timeline == null) {
+                timeline = loaded;
+            }
+        }
+        timeline.touch(clock.getAsLong());
+        return timeline;
+    }
+
+    /**
+     * Добавляет сохранённое бронирование в таймлайн. Если текущая транзакция откатится,
+     * бронирование будет удалено из таймлайна.
+     */
+    public void add(Booking booking) {
+        BookingTimeline timeline = get(booking.getItem().getId());
+        timeline.add(booking);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        timeline.remove(booking);
+                    }
+                }
+            });
+        }
+    }
+
+    public void remove(Booking booking) {
+        remove(booking.getItem().getId(), booking.getId(), booking.getStart());
+    }
+
+    public void remove(Integer itemId, Integer bookingId, LocalDateTime start) {
+        BookingTimeline timeline = timelines.get(itemId);
+        if (timeline != null) {
+            timeline.remove(bookingId, start);
+        }
+    }
+
+    public int size() {
+        return timelines.size();
+    }
+
+    /**
+     * Вытесняет таймлайны, к которым не обращались дольше idle. Бронирование добавляется
+     * в таймлайн перед фиксацией транзакции, поэтому таймлайн с незафиксированным бронированием
+     * не вытесняется, пока транзакция короче idle.
+     */
+    @Scheduled(initialDelayString = "${shareit.booking.timeline.evict-delay-ms:60000}",
+            fixedDelayString = "${shareit.booking.timeline.evict-delay-ms:60000}")
+    public void evictIdle() {
+        long time = clock.getAsLong();
+        int evicted = 0;
+        for (Map.Entry<Integer, BookingTimeline> entry : timelines.entrySet()) {
+            if (time - entry.getValue().getLastAccess() >= idleNanos
+                    && timelines.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Вытеснено таймлайнов вещей: {}, осталось {}", evicted, timelines.size());
+        }
+    }
+
+    private BookingTimeline load(Integer itemId) {
+        List<Booking> bookings = bookingRepository.findAllByItemIdAndStatusInAndEndIsAfter(itemId,
+                BLOCKING_STATES, now.get());
+        BookingTimeline timeline = new BookingTimeline();
+        for (Booking booking : bookings) {
+            timeline.add(booking);
+        }
+        log.debug("Загружен таймлайн вещи с Id = {}: {} бронирований", itemId, bookings.size());
+        return timeline;
+    }
+}
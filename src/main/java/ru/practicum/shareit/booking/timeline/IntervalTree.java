@@ -0,0 +1,201 @@
+package ru.practicum.shareit.booking.timeline;
+
+import java.time.LocalDateTime;
+
+/**
+ * AVL-дерево полуоткрытых интервалов [start, end), упорядоченных по (start, id).
+ * В каждом узле хранится максимальный конец интервала в поддереве, поэтому
+ * проверка пересечения выполняется за O(log n). Класс не потокобезопасен.
+ */
+public class IntervalTree {
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Добавляет интервал; интервал с теми же start и id заменяется.
+     */
+    public void add(int id, LocalDateTime start, LocalDateTime end) {
+        root = insert(root, id, start, end);
+    }
+
+    public boolean remove(int id, LocalDateTime start) {
+        int sizeBefore = size;
+        root = delete(root, id, start);
+        return size < sizeBefore;
+    }
+
+    /**
+     * Есть ли интервал, пересекающийся с [start, end). Интервалы, которые только касаются границ, не пересекаются.
+     */
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start.isBefore(end) && node.end.isAfter(start)) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd.isAfter(start)) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Передаёт в consumer все интервалы, пересекающиеся с [from, to), в порядке возрастания начала.
+     */
+    public void forEachOverlapping(LocalDateTime from, LocalDateTime to, IntervalConsumer consumer) {
+        visitOverlapping(root, from, to, consumer);
+    }
+
+    private void visitOverlapping(Node node, LocalDateTime from, LocalDateTime to, IntervalConsumer consumer) {
+        if (node == null || !node.maxEnd.isAfter(from)) {
+            return;
+        }
+        visitOverlapping(node.left, from, to, consumer);
+        if (!node.start.isBefore(to)) {
+            return;
+        }
+        if (node.end.isAfter(from)) {
+            consumer.accept(node.id, node.start, node.end);
+        }
+        visitOverlapping(node.right, from, to, consumer);
+    }
+
+    private Node insert(Node node, int id, LocalDateTime start, LocalDateTime end) {
+        if (node == null) {
+            size++;
+            return new Node(id, start, end);
+        }
+        int compare = compare(id, start, node);
+        if (compare < 0) {
+            node.left = insert(node.left, id, start, end);
+        } else if (compare > 0) {
+            node.right = insert(node.right, id, start, end);
+        } else {
+            node.end = end;
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, int id, LocalDateTime start) {
+        if (node == null) {
+            return null;
+        }
+        int compare = compare(id, start, node);
+        if (compare < 0) {
+            node.left = delete(node.left, id, start);
+        } else if (compare > 0) {
+            node.right = delete(node.right, id, start);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = deleteMin(node.right);
+            successor.left = node.left;
+            successor.right = node.right;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(int id, LocalDateTime start, Node node) {
+        int compare = start.compareTo(node.start);
+        return compare != 0 ? compare : Integer.compare(id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    @FunctionalInterface
+    public interface IntervalConsumer {
+        void accept(int id, LocalDateTime start, LocalDateTime end);
+    }
+
+    private static class Node {
+        private final int id;
+        private final LocalDateTime start;
+        private LocalDateTime end;
+        private LocalDateTime maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        Node(int id, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
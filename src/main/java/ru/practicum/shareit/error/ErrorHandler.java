@@ -1,6 +1,7 @@
 package ru.practicum.shareit.error;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -39,6 +40,12 @@ public class ErrorHandler {
         return new ErrorResponse("Пользователь с такой Электронной почтой уже есть в системе", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(final OptimisticLockingFailureException e) {
+        return new ErrorResponse("Объект был изменён другим запросом", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleIncorrectStateException(final IncorrectStateException e) {
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ConflictValidationException;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Ответы на запросы с заголовком Idempotency-Key. Повтор запроса с тем же ключом получает
+ * сохранённый ответ, а параллельные повторы ждут завершения первого выполнения.
+ * Ключи хранятся ttl миллисекунд и не больше maxKeys штук: при переполнении вытесняются самые старые.
+ * Ключ относится к пользователю и операции, поэтому чужой ответ по нему получить нельзя.
+ * Если выполнение завершилось ошибкой, ключ освобождается и запрос можно повторить.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final int maxKeys;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    @Autowired
+    public IdempotencyStore(@Value("${shareit.idempotency.max-keys:10000}") int maxKeys,
+                            @Value("${shareit.idempotency.ttl-ms:86400000}") long ttlMillis) {
+        this(maxKeys, ttlMillis, System::nanoTime);
+    }
+
+    IdempotencyStore(int maxKeys, long ttlMillis, LongSupplier clock) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("Количество ключей должно быть положительным");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Время хранения ключа должно быть положительным");
+        }
+        this.maxKeys = maxKeys;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.clock = clock;
+    }
+
+    /**
+     * Выполняет action не больше одного раза для ключа key операции operation пользователя userId.
+     * Без ключа action выполняется всегда.
+     *
+     * @param request тело запроса: повтор ключа с другим телом отклоняется
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Integer userId, String key, Object request, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank()) {
+            log.warn("Пустой ключ идемпотентности");
+            throw new ValidationException("Пустой ключ идемпотентности");
+        }
+
+        String storeKey = operation + ':' + userId + ':' + key;
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            long now = clock.getAsLong();
+            removeExpired(now);
+            entry = entries.get(storeKey);
+            if (entry == null) {
+                if (entries.size() == maxKeys) {
+                    Iterator<Entry> eldest = entries.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+                entry = new Entry(request, now + ttlNanos);
+                entries.put(storeKey, entry);
+                owner = true;
+            }
+        }
+
+        if (!Objects.equals(entry.request, request)) {
+            log.warn("Ключ идемпотентности {} уже использован для другого запроса", key);
+            throw new ConflictValidationException("Ключ идемпотентности уже использован для другого запроса");
+        }
+        if (owner) {
+            return (T) run(storeKey, entry, action);
+        }
+        log.debug("Повтор запроса с ключом идемпотентности {}", key);
+        return (T) await(entry);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Object run(String storeKey, Entry entry, Supplier<?> action) {
+        try {
+            Object response = action.get();
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            synchronized (entries) {
+                entries.remove(storeKey, entry);
+            }
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object await(Entry entry) {
+        try {
+            return entry.response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Время хранения у всех ключей одинаковое, поэтому в порядке добавления они и истекают.
+     */
+    private void removeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expiresAt - now > 0) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static class Entry {
+        private final Object request;
+        private final long expiresAt;
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+
+        Entry(Object request, long expiresAt) {
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingDto;
@@ -9,7 +13,13 @@ import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchRank;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.streaming.NdjsonWriter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -20,12 +30,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping
     public ItemDto create(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                          @RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey,
                           @RequestBody ItemDto itemDto) {
-        Item savedItem = itemService.createItem(userId, itemDto);
-        return ItemMapper.toDto(savedItem);
+        return idempotencyStore.execute("items", userId, idempotencyKey, itemDto,
+                () -> ItemMapper.toDto(itemService.createItem(userId, itemDto)));
     }
 
     @PatchMapping("/{itemId}")
@@ -41,18 +54,55 @@ public class ItemController {
         return itemService.findItemWithBookingById(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public List<TimeSlotDto> findFreeSlots(@PathVariable Integer itemId,
+                                           @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                           LocalDateTime from,
+                                           @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                           LocalDateTime to) {
+        return itemService.findFreeSlots(itemId, from, to);
+    }
+
     @GetMapping
     public List<ItemWithBookingDto> findAllItemsOfUser(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                                        @RequestParam(defaultValue = "0", name = "from") Integer from,
-                                                       @RequestParam(defaultValue = "1000000", name = "size") Integer size) {
-        return itemService.findAllItemsWithBooking(userId, from, size);
+                                                       @RequestParam(defaultValue = "1000000", name = "size") Integer size,
+                                                       @RequestParam(name = "after", required = false) String after,
+                                                       HttpServletResponse response) {
+        List<ItemWithBookingDto> items = itemService.findAllItemsWithBooking(userId, from, size, after);
+        if (items.size() == size) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, PageCursor.of(items.get(size - 1).getId()).encode());
+        }
+        return items;
+    }
+
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllItemsOfUser(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                     HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+        itemService.streamAllItemsWithBooking(userId, writer::write);
+        writer.flush();
     }
 
     @GetMapping("/search")
     public List<ItemDto> search(@RequestParam("text") String text,
                                 @RequestParam(defaultValue = "0", name = "from") Integer from,
-                                @RequestParam(defaultValue = "1000000", name = "size") Integer size) {
-        return ItemMapper.toDto(itemService.searchItem(text, from, size));
+                                @RequestParam(defaultValue = "1000000", name = "size") Integer size,
+                                @RequestParam(defaultValue = "DEFAULT", name = "rank") String rank,
+                                @RequestParam(name = "after", required = false) String after,
+                                HttpServletResponse response) {
+        List<Item> items = itemService.searchItem(text, from, size, rank, after);
+        if (items.size() == size && !ItemSearchRank.RELEVANCE.name().equalsIgnoreCase(rank)) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, PageCursor.of(items.get(size - 1).getId()).encode());
+        }
+        return ItemMapper.toDto(items);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam("prefix") String prefix,
+                                @RequestParam(defaultValue = "10", name = "size") Integer size) {
+        return itemService.suggestItemNames(prefix, size);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -2,14 +2,26 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingCount;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.finished.FinishedBookingCache;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
 import ru.practicum.shareit.exception.AccessDeniedException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.exception.IncorrectStateException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -18,27 +30,53 @@ import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemSearchRank;
+import ru.practicum.shareit.item.search.ItemRelevanceRanker;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.event.RequestItemSavedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemService {
+    private static final int SEARCH_BATCH_SIZE = 500;
+    private static final int STREAM_CHUNK_SIZE = 100;
+    private static final int REQUEST_BATCH_SIZE = 1000;
+    private static final Sort SORT_BY_ID = Sort.by("id");
 
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final FinishedBookingCache finishedBookingCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Item createItem(Integer userId, ItemDto itemDto) {
         validateRequiredFields(itemDto);
@@ -51,7 +89,10 @@ public class ItemService {
             ItemRequest itemRequest = getRequestById(itemDto.getRequestId());
             item.setRequest(itemRequest);
         }
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.add(savedItem);
+        publishRequestItemSaved(savedItem, null, true);
+        return savedItem;
     }
 
     public Item updateItem(Integer userId, Integer itemId, ItemDto itemDto) {
@@ -65,6 +106,8 @@ public class ItemService {
             throw new AccessDeniedException("Невозможно обновить информацию по вещи, принадлежащей другому пользователю");
         }
         validateFieldsFormat(itemDto);
+        Item previous = new Item(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getOwner(), item.getRequest());
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
         }
@@ -78,7 +121,10 @@ public class ItemService {
             ItemRequest itemRequest = getRequestById(itemDto.getRequestId());
             item.setRequest(itemRequest);
         }
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.update(previous, savedItem);
+        publishRequestItemSaved(savedItem, previous.getRequest(), false);
+        return savedItem;
     }
 
     public Item findById(Integer itemId) {
@@ -93,17 +139,41 @@ public class ItemService {
         });
     }
 
+    /**
+     * Свободные промежутки вещи в периоде [from, to). Таймлайн хранит только незавершённые
+     * бронирования, поэтому часть периода в прошлом свободной не считается.
+     */
+    public List<TimeSlotDto> findFreeSlots(Integer itemId, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            log.warn("Некорректный период from = {}, to = {}", from, to);
+            throw new ValidationException("Начало периода должно быть раньше окончания");
+        }
+        findById(itemId);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from.isBefore(now) ? now : from;
+        if (!start.isBefore(to)) {
+            return Collections.emptyList();
+        }
+        return bookingTimelineCache.get(itemId).findFreeSlots(start, to);
+    }
+
     public ItemWithBookingDto findItemWithBookingById(Integer userId, Integer itemId) {
         getUserById(userId);
         Item item = findById(itemId);
-        List<Comment> comments = commentRepository.findAllByItemId(itemId);
+        List<Comment> comments = commentRepository.findAllByItemIdIn(Collections.singleton(itemId));
 
         if (item.getOwner().getId().equals(userId)) {
+            LocalDateTime now = LocalDateTime.now();
             Booking lastBooking = bookingRepository.findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(itemId,
-                    LocalDateTime.now(), BookingState.APPROVED);
+                    now, BookingState.APPROVED);
+            if (lastBooking == null) {
+                ArchivedBooking archivedBooking = archivedBookingRepository
+                        .findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(itemId, now, BookingState.APPROVED);
+                lastBooking = archivedBooking == null ? null : BookingMapper.toBooking(archivedBooking);
+            }
 
             Booking nextBooking = bookingRepository.findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(itemId,
-                    LocalDateTime.now(), BookingState.APPROVED);
+                    now, BookingState.APPROVED);
             return ItemMapper.toItemWithBookingDto(item, lastBooking, nextBooking, comments);
         } else {
             return ItemMapper.toItemWithBookingDto(item, null, null, comments);
@@ -116,37 +186,145 @@ public class ItemService {
         return itemRepository.findAllByOwnerId(userId);
     }
 
-    public List<Item> findAllItemsByRequest(Integer requestId) {
-        return itemRepository.findAllByRequestId(requestId);
+    public boolean hasItemsOfUser(Integer userId) {
+        getUserById(userId);
+        return itemRepository.existsByOwnerId(userId);
+    }
+
+    public List<ItemDto> findAllItemsByRequest(Integer requestId) {
+        return itemRepository.findDtosByRequestId(requestId);
+    }
+
+    /**
+     * Вещи, отвечающие на запросы, сгруппированные по id запроса, одним запросом к базе на каждые
+     * REQUEST_BATCH_SIZE запросов: так число параметров IN не упирается в ограничение драйвера.
+     */
+    public Map<Integer, List<ItemDto>> findAllItemDtosByRequests(List<Integer> requestIds) {
+        Map<Integer, List<ItemDto>> itemsByRequestId = new HashMap<>();
+        for (int from = 0; from < requestIds.size(); from += REQUEST_BATCH_SIZE) {
+            List<Integer> batch = requestIds.subList(from, Math.min(from + REQUEST_BATCH_SIZE, requestIds.size()));
+            for (ItemDto item : itemRepository.findDtosByRequestIdIn(batch)) {
+                itemsByRequestId.computeIfAbsent(item.getRequestId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        return itemsByRequestId;
+    }
+
+    public Map<Integer, List<Item>> findAllItemsByRequests(Collection<Integer> requestIds) {
+        Map<Integer, List<Item>> itemsByRequestId = new HashMap<>();
+        if (requestIds.isEmpty()) {
+            return itemsByRequestId;
+        }
+        for (Item item : itemRepository.findAllByRequestIdIn(requestIds)) {
+            itemsByRequestId.computeIfAbsent(item.getRequest().getId(), id -> new ArrayList<>()).add(item);
+        }
+        return itemsByRequestId;
     }
 
     public List<ItemWithBookingDto> findAllItemsWithBooking(Integer userId, Integer from, Integer size) {
+        return findAllItemsWithBooking(userId, from, size, null);
+    }
+
+    public List<ItemWithBookingDto> findAllItemsWithBooking(Integer userId, Integer from, Integer size, String after) {
         List<Item> items;
         getUserById(userId);
         if (from < 0 || size <= 0) {
             log.error("Некорректные значения параметров from = {}, size={}", from, size);
             throw new ValidationException("Некорректные значения параметров from/size");
         }
-        Pageable page = PageRequest.of(from / size, size);
-        items = itemRepository.findAllByOwnerId(userId, page).getContent();
+        if (after != null) {
+            items = itemRepository.findAllByOwnerIdAndIdGreaterThan(userId, decodeItemCursor(after),
+                    PageRequest.of(0, size, SORT_BY_ID));
+        } else {
+            Pageable page = PageRequest.of(from / size, size, SORT_BY_ID);
+            items = itemRepository.findAllByOwnerId(userId, page);
+        }
+        return toItemsWithBooking(items);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllItemsWithBooking(Integer userId, Consumer<ItemWithBookingDto> consumer) {
+        getUserById(userId);
+        try (Stream<Item> items = itemRepository.streamAllByOwnerIdOrderById(userId)) {
+            List<Item> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            Iterator<Item> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                    toItemsWithBooking(chunk).forEach(consumer);
+                    chunk.clear();
+                    itemRepository.detachAll();
+                }
+            }
+        }
+    }
+
+    private List<ItemWithBookingDto> toItemsWithBooking(List<Item> items) {
         List<ItemWithBookingDto> itemsWithBookings = new ArrayList<>();
+        if (items.isEmpty()) {
+            return itemsWithBookings;
+        }
 
+        Set<Integer> itemIds = new HashSet<>();
         for (Item item : items) {
-            Booking lastBooking = bookingRepository.findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(item.getId(),
-                    LocalDateTime.now(), BookingState.APPROVED);
+            itemIds.add(item.getId());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, Booking> lastBookings = groupByItemId(
+                bookingRepository.findLastBookingsOfItems(itemIds, now, BookingState.APPROVED));
+        addArchivedLastBookings(itemIds, lastBookings, now);
+        Map<Integer, Booking> nextBookings = groupByItemId(
+                bookingRepository.findNextBookingsOfItems(itemIds, now, BookingState.APPROVED));
+        Map<Integer, List<Comment>> comments = groupCommentsByItemId(commentRepository.findAllByItemIdIn(itemIds));
 
-            Booking nextBooking = bookingRepository.findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(item.getId(),
-                    LocalDateTime.now(), BookingState.APPROVED);
+        for (Item item : items) {
+            itemsWithBookings.add(ItemMapper.toItemWithBookingDto(item, lastBookings.get(item.getId()),
+                    nextBookings.get(item.getId()), comments.getOrDefault(item.getId(), new ArrayList<>())));
+        }
 
-            List<Comment> comments = commentRepository.findAllByItemId(item.getId());
+        return itemsWithBookings;
+    }
 
-            itemsWithBookings.add(ItemMapper.toItemWithBookingDto(item, lastBooking, nextBooking, comments));
+    /**
+     * Для вещей без начавшихся бронирований в bookings последнее бронирование ищется в архиве.
+     * Если такое бронирование есть в bookings, архив не читается: туда переносятся только
+     * бронирования, закончившиеся давно.
+     */
+    private void addArchivedLastBookings(Set<Integer> itemIds, Map<Integer, Booking> lastBookings,
+                                         LocalDateTime now) {
+        Set<Integer> withoutLastBooking = new HashSet<>(itemIds);
+        withoutLastBooking.removeAll(lastBookings.keySet());
+        if (withoutLastBooking.isEmpty()) {
+            return;
         }
+        for (ArchivedBooking archivedBooking : archivedBookingRepository.findLastBookingsOfItems(withoutLastBooking,
+                now, BookingState.APPROVED)) {
+            lastBookings.putIfAbsent(archivedBooking.getItem().getId(), BookingMapper.toBooking(archivedBooking));
+        }
+    }
 
-        return itemsWithBookings;
+    private Map<Integer, Booking> groupByItemId(List<Booking> bookings) {
+        Map<Integer, Booking> bookingsByItemId = new HashMap<>();
+        for (Booking booking : bookings) {
+            bookingsByItemId.putIfAbsent(booking.getItem().getId(), booking);
+        }
+        return bookingsByItemId;
+    }
+
+    private Map<Integer, List<Comment>> groupCommentsByItemId(List<Comment> comments) {
+        Map<Integer, List<Comment>> commentsByItemId = new HashMap<>();
+        for (Comment comment : comments) {
+            commentsByItemId.computeIfAbsent(comment.getItem().getId(), id -> new ArrayList<>()).add(comment);
+        }
+        return commentsByItemId;
     }
 
     public List<Item> searchItem(String text, Integer from, Integer size) {
+        return searchItem(text, from, size, ItemSearchRank.DEFAULT.name(), null);
+    }
+
+    public List<Item> searchItem(String text, Integer from, Integer size, String rank, String after) {
+        ItemSearchRank searchRank = validateSearchRank(rank);
         if (text == null || text.isBlank()) {
             return new ArrayList<>();
         }
@@ -154,8 +332,131 @@ public class ItemService {
             log.error("Некорректные значения параметров from = {}, size={}", from, size);
             throw new ValidationException("Некорректные значения параметров from/size");
         }
-        Pageable page = PageRequest.of(from / size, size);
-        return itemRepository.findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable(text, text, Boolean.TRUE, page).getContent();
+        int offset = from / size * size;
+        if (searchRank == ItemSearchRank.RELEVANCE) {
+            if (after != null) {
+                log.error("Курсор не поддерживается при сортировке по релевантности");
+                throw new ValidationException("Параметр after не поддерживается для rank=relevance");
+            }
+            return searchItemByRelevance(text, offset, size);
+        }
+        int afterId = 0;
+        if (after != null) {
+            afterId = decodeItemCursor(after);
+            offset = 0;
+        }
+        if (!itemSearchIndex.canSearch(text)) {
+            Pageable page = PageRequest.of(offset / size, size);
+            return itemRepository.searchAvailable(text, afterId, page).getContent();
+        }
+
+        int[] candidates = itemSearchIndex.findCandidates(text);
+        int first = Arrays.binarySearch(candidates, afterId);
+        first = first >= 0 ? first + 1 : -first - 1;
+        List<Item> found = new ArrayList<>();
+        int skipped = 0;
+        for (int start = first; start < candidates.length && found.size() < size; start += SEARCH_BATCH_SIZE) {
+            for (Item item : findMatchingCandidates(candidates, start, text)) {
+                if (found.size() == size) {
+                    break;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    found.add(item);
+                }
+            }
+        }
+        return found;
+    }
+
+    public List<String> suggestItemNames(String prefix, Integer size) {
+        if (size <= 0) {
+            log.error("Некорректное значение параметра size={}", size);
+            throw new ValidationException("Некорректное значение параметра size");
+        }
+        if (prefix == null || prefix.isBlank()) {
+            return new ArrayList<>();
+        }
+        return itemSearchIndex.suggest(prefix.trim(), size);
+    }
+
+    private List<Item> searchItemByRelevance(String text, int offset, int size) {
+        ItemRelevanceRanker ranker = new ItemRelevanceRanker(text, (int) Math.min((long) offset + size, Integer.MAX_VALUE));
+        if (itemSearchIndex.canSearch(text)) {
+            int[] candidates = itemSearchIndex.findCandidates(text);
+            for (int start = 0; start < candidates.length; start += SEARCH_BATCH_SIZE) {
+                List<Item> items = findMatchingCandidates(candidates, start, text);
+                ranker.offer(items, countCompletedBookings(items));
+            }
+        } else {
+            Slice<Item> page;
+            int pageNumber = 0;
+            do {
+                page = itemRepository.searchAvailable(text, 0, PageRequest.of(pageNumber++, SEARCH_BATCH_SIZE));
+                ranker.offer(page.getContent(), countCompletedBookings(page.getContent()));
+            } while (page.hasNext());
+        }
+
+        List<Item> ranked = ranker.result();
+        if (offset >= ranked.size()) {
+            return new ArrayList<>();
+        }
+        return ranked.subList(offset, ranked.size());
+    }
+
+    private List<Item> findMatchingCandidates(int[] candidates, int start, String text) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = start; i < Math.min(start + SEARCH_BATCH_SIZE, candidates.length); i++) {
+            ids.add(candidates[i]);
+        }
+        List<Item> items = new ArrayList<>();
+        for (Item item : itemRepository.findAllById(ids)) {
+            if (ItemSearchIndex.matches(item, text)) {
+                items.add(item);
+            }
+        }
+        items.sort(Comparator.comparing(Item::getId));
+        return items;
+    }
+
+    private Map<Integer, Long> countCompletedBookings(List<Item> items) {
+        Map<Integer, Long> completedBookings = new HashMap<>();
+        if (items.isEmpty()) {
+            return completedBookings;
+        }
+        Set<Integer> itemIds = new HashSet<>();
+        for (Item item : items) {
+            itemIds.add(item.getId());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (ItemBookingCount count : bookingRepository.countBookingsOfItemsEndedBefore(itemIds,
+                now, BookingState.APPROVED)) {
+            completedBookings.put(count.getItemId(), count.getBookingCount());
+        }
+        for (ItemBookingCount count : archivedBookingRepository.countBookingsOfItemsEndedBefore(itemIds,
+                now, BookingState.APPROVED)) {
+            completedBookings.merge(count.getItemId(), count.getBookingCount(), Long::sum);
+        }
+        return completedBookings;
+    }
+
+    private Integer decodeItemCursor(String after) {
+        PageCursor cursor = PageCursor.decode(after);
+        if (cursor.getEnd() != null) {
+            log.error("Курсор бронирований передан в список вещей: {}", after);
+            throw new ValidationException("Некорректное значение параметра after");
+        }
+        return cursor.getId();
+    }
+
+    private ItemSearchRank validateSearchRank(String rank) {
+        try {
+            return ItemSearchRank.valueOf(rank.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.error("Unknown rank: " + rank);
+            throw new IncorrectStateException("Unknown rank: " + rank);
+        }
     }
 
     public Comment createComment(Integer userId, Integer itemId, CommentDto commentDto) {
@@ -165,11 +466,12 @@ public class ItemService {
         }
         User user = getUserById(userId);
         Item item = findById(itemId);
-        Booking booking = bookingRepository.findFirst1ByBookerIdAndItemIdAndEndIsBefore(userId, itemId,
-                LocalDateTime.now());
-        if (booking == null) {
-            log.warn("Вещь не была арендована");
-            throw new ValidationException("Вещь не была арендована");
+        if (!finishedBookingCache.contains(userId, itemId)) {
+            if (!hasFinishedBooking(userId, itemId, LocalDateTime.now())) {
+                log.warn("Вещь не была арендована");
+                throw new ValidationException("Вещь не была арендована");
+            }
+            finishedBookingCache.add(userId, itemId);
         }
 
         Comment comment = CommentMapper.toComment(commentDto);
@@ -180,6 +482,21 @@ public class ItemService {
         return commentRepository.save(comment);
     }
 
+    private void publishRequestItemSaved(Item item, ItemRequest previousRequest, boolean created) {
+        if (item.getRequest() == null && previousRequest == null) {
+            return;
+        }
+        eventPublisher.publishEvent(new RequestItemSavedEvent(ItemMapper.toDto(item),
+                previousRequest == null ? null : previousRequest.getId(),
+                item.getRequest() == null ? null : item.getRequest().getRequestor().getId(),
+                created));
+    }
+
+    private boolean hasFinishedBooking(Integer userId, Integer itemId, LocalDateTime now) {
+        return bookingRepository.findFirst1ByBookerIdAndItemIdAndEndIsBefore(userId, itemId, now) != null
+                || archivedBookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(userId, itemId, now);
+    }
+
     private void validateFieldsFormat(ItemDto itemDto) {
         if (itemDto.getName() != null && (itemDto.getName().isBlank() || itemDto.getName().isEmpty())) {
             log.warn("Название обязательно для заполнения");
@@ -35,7 +35,7 @@ public class Item {
     @JoinColumn(name = "owner_id")
     private User owner;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private ItemRequest request;
 }
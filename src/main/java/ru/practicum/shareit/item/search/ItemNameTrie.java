@@ -0,0 +1,210 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Сжатое префиксное дерево слов из названий вещей. Для каждого слова хранится число
+ * вещей, в названии которых оно встречается, а в каждом узле — максимум этого числа
+ * по поддереву, что позволяет выбирать популярные дополнения, не обходя всё поддерево.
+ */
+public class ItemNameTrie {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Node root = new Node("");
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static Set<String> tokensOf(String name) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (name == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(TrigramIndex.normalize(name))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public void add(String name) {
+        Set<String> tokens = tokensOf(name);
+        lock.writeLock().lock();
+        try {
+            for (String token : tokens) {
+                insert(root, token);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String name) {
+        Set<String> tokens = tokensOf(name);
+        lock.writeLock().lock();
+        try {
+            for (String token : tokens) {
+                delete(root, token);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает до limit слов, начинающихся с prefix, по убыванию числа вещей,
+     * при равенстве — в алфавитном порядке.
+     */
+    public List<String> complete(String prefix, int limit) {
+        String normalized = TrigramIndex.normalize(prefix);
+        List<String> completions = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            String path = "";
+            int matched = 0;
+            while (matched < normalized.length()) {
+                Node child = node.children.get(normalized.charAt(matched));
+                if (child == null) {
+                    return completions;
+                }
+                int common = commonPrefixLength(child.label, normalized, matched);
+                if (matched + common < normalized.length() && common < child.label.length()) {
+                    return completions;
+                }
+                path = path + child.label;
+                matched += common;
+                node = child;
+            }
+
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.BEST_FIRST);
+            queue.add(new Candidate(path, node.maxCount, node));
+            while (!queue.isEmpty() && completions.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.node == null) {
+                    completions.add(candidate.text);
+                    continue;
+                }
+                if (candidate.node.count > 0) {
+                    queue.add(new Candidate(candidate.text, candidate.node.count, null));
+                }
+                for (Node child : candidate.node.children.values()) {
+                    queue.add(new Candidate(candidate.text + child.label, child.maxCount, child));
+                }
+            }
+            return completions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Node node, String token) {
+        if (token.isEmpty()) {
+            node.count++;
+            node.maxCount = Math.max(node.maxCount, node.count);
+            return;
+        }
+        Node child = node.children.get(token.charAt(0));
+        if (child == null) {
+            child = new Node(token);
+            node.children.put(token.charAt(0), child);
+        } else {
+            int common = commonPrefixLength(child.label, token, 0);
+            if (common < child.label.length()) {
+                child = split(node, child, common);
+            }
+        }
+        insert(child, token.substring(child.label.length()));
+        node.maxCount = Math.max(node.maxCount, child.maxCount);
+    }
+
+    private Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        child.label = child.label.substring(at);
+        middle.children.put(child.label.charAt(0), child);
+        middle.maxCount = child.maxCount;
+        parent.children.put(middle.label.charAt(0), middle);
+        return middle;
+    }
+
+    private boolean delete(Node node, String token) {
+        if (token.isEmpty()) {
+            if (node.count == 0) {
+                return false;
+            }
+            node.count--;
+            node.updateMaxCount();
+            return true;
+        }
+        Node child = node.children.get(token.charAt(0));
+        if (child == null || !token.startsWith(child.label)) {
+            return false;
+        }
+        if (!delete(child, token.substring(child.label.length()))) {
+            return false;
+        }
+        if (child.count == 0 && child.children.isEmpty()) {
+            node.children.remove(child.label.charAt(0));
+        } else if (child.count == 0 && child.children.size() == 1) {
+            Node grandChild = child.children.values().iterator().next();
+            grandChild.label = child.label + grandChild.label;
+            node.children.put(grandChild.label.charAt(0), grandChild);
+        }
+        node.updateMaxCount();
+        return true;
+    }
+
+    private static int commonPrefixLength(String label, String text, int offset) {
+        int length = Math.min(label.length(), text.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == text.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new TreeMap<>();
+        private String label;
+        private int count;
+        private int maxCount;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        void updateMaxCount() {
+            int max = count;
+            for (Node child : children.values()) {
+                max = Math.max(max, child.maxCount);
+            }
+            maxCount = max;
+        }
+    }
+
+    private static class Candidate {
+        private static final Comparator<Candidate> BEST_FIRST = Comparator
+                .comparingInt((Candidate candidate) -> candidate.weight).reversed()
+                .thenComparing(candidate -> candidate.text)
+                .thenComparing(candidate -> candidate.node != null);
+
+        private final String text;
+        private final int weight;
+        private final Node node;
+
+        Candidate(String text, int weight, Node node) {
+            this.text = text;
+            this.weight = weight;
+            this.node = node;
+        }
+    }
+}
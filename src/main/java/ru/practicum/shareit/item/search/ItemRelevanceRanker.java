@@ -0,0 +1,85 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Отбирает limit самых релевантных вещей, не сортируя всё множество совпадений:
+ * в куче хранится не больше limit элементов, в её вершине — наименее релевантный.
+ */
+public class ItemRelevanceRanker {
+    static final double NAME_WEIGHT = 3.0;
+    static final double DESCRIPTION_WEIGHT = 1.0;
+
+    private static final Comparator<ScoredItem> WORST_FIRST = Comparator
+            .comparingDouble(ScoredItem::getScore)
+            .thenComparing(scoredItem -> scoredItem.getItem().getId(), Comparator.reverseOrder());
+
+    private final String query;
+    private final int limit;
+    private final PriorityQueue<ScoredItem> heap = new PriorityQueue<>(WORST_FIRST);
+
+    public ItemRelevanceRanker(String text, int limit) {
+        this.query = TrigramIndex.normalize(text);
+        this.limit = limit;
+    }
+
+    public void offer(List<Item> items, Map<Integer, Long> completedBookings) {
+        for (Item item : items) {
+            ScoredItem scoredItem = new ScoredItem(item, score(item, completedBookings.getOrDefault(item.getId(), 0L)));
+            if (heap.size() < limit) {
+                heap.add(scoredItem);
+            } else if (limit > 0 && WORST_FIRST.compare(scoredItem, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(scoredItem);
+            }
+        }
+    }
+
+    /**
+     * Возвращает отобранные вещи по убыванию релевантности, при равенстве — по возрастанию id.
+     */
+    public List<Item> result() {
+        List<ScoredItem> scoredItems = new ArrayList<>(heap);
+        scoredItems.sort(WORST_FIRST.reversed());
+        List<Item> items = new ArrayList<>(scoredItems.size());
+        for (ScoredItem scoredItem : scoredItems) {
+            items.add(scoredItem.getItem());
+        }
+        return items;
+    }
+
+    double score(Item item, long completedBookings) {
+        return NAME_WEIGHT * countOccurrences(item.getName())
+                + DESCRIPTION_WEIGHT * countOccurrences(item.getDescription())
+                + Math.log1p(completedBookings);
+    }
+
+    private int countOccurrences(String text) {
+        if (text == null || query.isEmpty()) {
+            return 0;
+        }
+        String normalized = TrigramIndex.normalize(text);
+        int count = 0;
+        int position = normalized.indexOf(query);
+        while (position >= 0) {
+            count++;
+            position = normalized.indexOf(query, position + 1);
+        }
+        return count;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class ScoredItem {
+        private final Item item;
+        private final double score;
+    }
+}
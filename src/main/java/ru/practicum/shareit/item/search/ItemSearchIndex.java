@@ -0,0 +1,97 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+    private static final int WARM_UP_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final ItemNameTrie nameTrie = new ItemNameTrie();
+    private volatile boolean ready;
+
+    public static boolean matches(Item item, String text) {
+        String query = TrigramIndex.normalize(text);
+        return Boolean.TRUE.equals(item.getAvailable()) &&
+                (TrigramIndex.normalize(item.getName()).contains(query) ||
+                        TrigramIndex.normalize(item.getDescription()).contains(query));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        int lastId = 0;
+        int indexed = 0;
+        List<Item> batch;
+        do {
+            batch = itemRepository.findAllByAvailableIsTrueAndIdGreaterThanOrderByIdAsc(lastId,
+                    PageRequest.of(0, WARM_UP_BATCH_SIZE));
+            for (Item item : batch) {
+                add(item);
+                lastId = item.getId();
+            }
+            indexed += batch.size();
+        } while (batch.size() == WARM_UP_BATCH_SIZE);
+
+        ready = true;
+        log.info("Поисковый индекс построен: {} вещей, {} триграмм", indexed, trigramIndex.size());
+    }
+
+    public boolean canSearch(String text) {
+        return ready && TrigramIndex.isSearchable(text);
+    }
+
+    public int[] findCandidates(String text) {
+        return trigramIndex.search(text);
+    }
+
+    public List<TrigramIndex.Match> findSimilar(String text, int limit, int minSharedTrigrams) {
+        return trigramIndex.mostSimilar(text, limit, minSharedTrigrams);
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return nameTrie.complete(prefix, limit);
+    }
+
+    public void add(Item item) {
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            trigramIndex.add(item.getId(), item.getName(), item.getDescription());
+            nameTrie.add(item.getName());
+        }
+    }
+
+    public void update(Item previous, Item current) {
+        remove(previous);
+        add(current);
+    }
+
+    public void remove(Item item) {
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            trigramIndex.remove(item.getId(), item.getName(), item.getDescription());
+            nameTrie.remove(item.getName());
+        }
+    }
+
+    /**
+     * Вещи удалённого пользователя база удалила каскадно, поэтому из индекса они убираются по снимку из события.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        for (Item item : event.getItems()) {
+            remove(item);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Инвертированный индекс по триграммам текста. Для каждой триграммы хранится
+ * отсортированный массив id документов, в которых она встречается.
+ * Индекс возвращает кандидатов: документы, содержащие все триграммы запроса,
+ * поэтому совпадение подстроки вызывающий код должен проверить сам.
+ */
+public class TrigramIndex {
+    public static final int TRIGRAM_LENGTH = 3;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    public static boolean isSearchable(String query) {
+        return query != null && query.length() >= TRIGRAM_LENGTH;
+    }
+
+    public void add(int id, String... texts) {
+        long[] trigrams = trigramsOf(texts);
+        lock.writeLock().lock();
+        try {
+            for (long trigram : trigrams) {
+                postings.computeIfAbsent(trigram, key -> new PostingList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id, String... texts) {
+        long[] trigrams = trigramsOf(texts);
+        lock.writeLock().lock();
+        try {
+            for (long trigram : trigrams) {
+                PostingList postingList = postings.get(trigram);
+                if (postingList != null && postingList.remove(id) && postingList.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает отсортированные по возрастанию id документов, содержащих все триграммы запроса.
+     */
+    public int[] search(String query) {
+        long[] trigrams = trigramsOf(query);
+        if (trigrams.length == 0) {
+            return EMPTY;
+        }
+
+        List<PostingList> lists = new ArrayList<>(trigrams.length);
+        lock.readLock().lock();
+        try {
+            for (long trigram : trigrams) {
+                PostingList postingList = postings.get(trigram);
+                if (postingList == null) {
+                    return EMPTY;
+                }
+                lists.add(postingList);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+
+            int[] result = lists.get(0).toArray();
+            int resultSize = result.length;
+            for (int i = 1; i < lists.size() && resultSize > 0; i++) {
+                resultSize = lists.get(i).retainAll(result, resultSize);
+            }
+            return Arrays.copyOf(result, resultSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Документы, разделяющие с текстом больше всего триграмм: не более limit совпадений
+     * по убыванию числа общих триграмм, при равенстве по возрастанию id.
+     * Документы, у которых общих триграмм меньше minSharedTrigrams, не возвращаются.
+     */
+    public List<Match> mostSimilar(String text, int limit, int minSharedTrigrams) {
+        long[] trigrams = trigramsOf(text);
+        Map<Integer, int[]> shared = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (long trigram : trigrams) {
+                PostingList postingList = postings.get(trigram);
+                if (postingList != null) {
+                    postingList.forEach(id -> shared.computeIfAbsent(id, key -> new int[1])[0]++);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Integer, int[]> entry : shared.entrySet()) {
+            if (entry.getValue()[0] >= minSharedTrigrams) {
+                matches.add(new Match(entry.getKey(), entry.getValue()[0]));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::getSharedTrigrams).reversed()
+                .thenComparingInt(Match::getId));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static long[] trigramsOf(String... texts) {
+        String[] normalized = new String[texts.length];
+        int capacity = 0;
+        for (int i = 0; i < texts.length; i++) {
+            if (texts[i] != null) {
+                normalized[i] = normalize(texts[i]);
+                capacity += Math.max(0, normalized[i].length() - TRIGRAM_LENGTH + 1);
+            }
+        }
+
+        long[] trigrams = new long[capacity];
+        int count = 0;
+        for (String text : normalized) {
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i + TRIGRAM_LENGTH <= text.length(); i++) {
+                trigrams[count++] = ((long) text.charAt(i) << 32)
+                        | ((long) text.charAt(i + 1) << 16)
+                        | text.charAt(i + 2);
+            }
+        }
+
+        Arrays.sort(trigrams, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || trigrams[unique - 1] != trigrams[i]) {
+                trigrams[unique++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, unique);
+    }
+
+    public static class Match {
+        private final int id;
+        private final int sharedTrigrams;
+
+        public Match(int id, int sharedTrigrams) {
+            this.id = id;
+            this.sharedTrigrams = sharedTrigrams;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getSharedTrigrams() {
+            return sharedTrigrams;
+        }
+    }
+
+    private static class PostingList {
+        private int[] ids = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        void forEach(IntConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(ids[i]);
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        /**
+         * Оставляет в начале массива candidates только id, присутствующие в этом списке,
+         * и возвращает их количество.
+         */
+        int retainAll(int[] candidates, int candidatesSize) {
+            int retained = 0;
+            int from = 0;
+            for (int i = 0; i < candidatesSize; i++) {
+                int position = Arrays.binarySearch(ids, from, size, candidates[i]);
+                if (position >= 0) {
+                    candidates[retained++] = candidates[i];
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            return retained;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+    }
+}
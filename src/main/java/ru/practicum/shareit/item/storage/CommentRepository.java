@@ -1,10 +1,14 @@
 package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
-    List<Comment> findAllByItemId(Integer itemId);
+    @Query("select c from Comment c join fetch c.author where c.item.id in :itemIds order by c.id")
+    List<Comment> findAllByItemIdIn(@Param("itemIds") Collection<Integer> itemIds);
 }
@@ -1,22 +1,58 @@
 package ru.practicum.shareit.item.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.streaming.StreamingRepository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface ItemRepository extends JpaRepository<Item, Integer> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface ItemRepository extends JpaRepository<Item, Integer>, StreamingRepository {
     List<Item> findAllByOwnerId(Integer userId);
 
-    Page<Item> findAllByOwnerId(Integer userId, Pageable pageable);
+    List<Item> findAllByOwnerId(Integer userId, Pageable pageable);
+
+    boolean existsByOwnerId(Integer userId);
+
+    List<Item> findAllByOwnerIdAndIdGreaterThan(Integer userId, Integer id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE))
+    Stream<Item> streamAllByOwnerIdOrderById(Integer userId);
 
     List<Item> findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable(String nameText, String descriptionText,
                                                                           Boolean isAvailable);
 
-    Page<Item> findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable(String nameText, String descriptionText,
-                                                                          Boolean isAvailable, Pageable pageable);
+    @Query("select i from Item i where i.available = true " +
+            "and i.id > :afterId " +
+            "and (upper(i.name) like upper(concat('%', :text, '%')) " +
+            "or upper(i.description) like upper(concat('%', :text, '%'))) " +
+            "order by i.id")
+    Slice<Item> searchAvailable(@Param("text") String text, @Param("afterId") Integer afterId, Pageable pageable);
+
+    List<Item> findAllByAvailableIsTrueAndIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    @Query("select i.id from Item i where i.id in :ids and i.available = true and i.owner.id <> :userId")
+    List<Integer> findAvailableIdsNotOwnedBy(@Param("ids") Collection<Integer> ids, @Param("userId") Integer userId);
 
     List<Item> findAllByRequestId(Integer requestId);
-}
\ No newline at end of file
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.request.id) " +
+            "from Item i where i.request.id = :requestId order by i.id")
+    List<ItemDto> findDtosByRequestId(@Param("requestId") Integer requestId);
+
+    List<Item> findAllByRequestIdIn(Collection<Integer> requestIds);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.request.id) " +
+            "from Item i where i.request.id in :requestIds order by i.id")
+    List<ItemDto> findDtosByRequestIdIn(@Param("requestIds") Collection<Integer> requestIds);
+}
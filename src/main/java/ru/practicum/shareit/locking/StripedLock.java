@@ -0,0 +1,37 @@
+package ru.practicum.shareit.locking;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Фиксированный набор блокировок, между которыми распределяются ключи. Разные ключи
+ * могут попасть на одну блокировку, но память не растёт с числом ключей.
+ */
+public class StripedLock {
+    private final Lock[] locks;
+    private final int mask;
+
+    public StripedLock(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Количество блокировок должно быть положительным");
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public Lock get(int key) {
+        int hash = key * 0x9E3779B9;
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция последней выданной записи списка. Клиент получает курсор в заголовке
+ * X-Next-Cursor и передает его без изменений в параметре after.
+ */
+@Slf4j
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class PageCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime end;
+    private final Integer id;
+
+    public static PageCursor of(Integer id) {
+        return new PageCursor(null, id);
+    }
+
+    public static PageCursor of(LocalDateTime end, Integer id) {
+        return new PageCursor(end, id);
+    }
+
+    public String encode() {
+        String value = end == null ? String.valueOf(id) : end + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return of(Integer.valueOf(value));
+            }
+            return of(LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.error("Некорректный курсор: {}", cursor);
+            throw new ValidationException("Некорректное значение параметра after");
+        }
+    }
+}
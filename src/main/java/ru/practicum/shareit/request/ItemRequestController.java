@@ -1,11 +1,18 @@
 package ru.practicum.shareit.request;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.streaming.NdjsonWriter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -16,6 +23,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemRequestController {
     private final ItemRequestService itemRequestService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemRequestDto create(@RequestHeader("X-Sharer-User-Id") Integer userId,
@@ -29,16 +37,45 @@ public class ItemRequestController {
         return itemRequestService.findAllItemRequestsOfUser(userId);
     }
 
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllItemRequestsOfUser(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                            HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+        itemRequestService.streamAllItemRequestsOfUser(userId, writer::write);
+        writer.flush();
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToAnswers(@RequestHeader("X-Sharer-User-Id") Integer userId) {
+        return itemRequestService.subscribeToAnswers(userId);
+    }
+
     @GetMapping("/{requestId}")
     public ItemRequestWithResponseDto findById(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                                @PathVariable Integer requestId) {
         return itemRequestService.findItemRequestWithResponseById(userId, requestId);
     }
 
+    @GetMapping("/{requestId}/suggestions")
+    public List<ItemDto> findSuggestedItems(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                            @PathVariable Integer requestId) {
+        return itemRequestService.findSuggestedItems(userId, requestId);
+    }
+
     @GetMapping("/all")
     public List<ItemRequestWithResponseDto> findAllItemRequestsOfOtherUsers(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                                                             @RequestParam(defaultValue = "0", name = "from") Integer from,
                                                                             @RequestParam(defaultValue = "1000000", name = "size") Integer size) {
         return itemRequestService.findAllItemRequestsOfOtherUsers(userId, from, size);
     }
+
+    @GetMapping(value = "/all", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllItemRequestsOfOtherUsers(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                  HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+        itemRequestService.streamAllItemRequestsOfOtherUsers(userId, writer::write);
+        writer.flush();
+    }
 }
@@ -0,0 +1,254 @@
+package ru.practicum.shareit.request;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.event.RequestItemSavedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Общая для всех пользователей лента capacity последних запросов вместе с ответами на них.
+ * Запросы самого пользователя отбрасываются при чтении, поэтому снимок один на всех.
+ * <p>
+ * Снимок загружается при первом чтении и затем обновляется по событиям после фиксации транзакций:
+ * новый запрос вставляется в ленту, сохранённая вещь заменяется в ответах своего запроса.
+ * Удаление пользователя сбрасывает снимок целиком. На случай изменений в обход сервисов
+ * снимок старше maxAge перезагружается. Элементы снимка не меняются после публикации:
+ * при обновлении запрос заменяется копией, так что выданные страницы можно сериализовать без блокировки.
+ */
+@Slf4j
+@Component
+public class ItemRequestFeedCache implements MeterBinder {
+    private static final Comparator<ItemRequestWithResponseDto> NEWEST_FIRST =
+            Comparator.comparing(ItemRequestWithResponseDto::getCreated, Comparator.reverseOrder())
+                    .thenComparing(ItemRequestWithResponseDto::getId, Comparator.reverseOrder());
+
+    private final int capacity;
+    private final long maxAgeNanos;
+    private final LongSupplier clock;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private List<ItemRequestWithResponseDto> requests;
+    private boolean complete;
+    private long loadedAt;
+    private long generation;
+
+    @Autowired
+    public ItemRequestFeedCache(@Value("${shareit.requests.feed.capacity:1000}") int capacity,
+                                @Value("${shareit.requests.feed.max-age-ms:300000}") long maxAgeMillis) {
+        this(capacity, maxAgeMillis, System::nanoTime);
+    }
+
+    ItemRequestFeedCache(int capacity, long maxAgeMillis, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер ленты должен быть положительным");
+        }
+        if (maxAgeMillis <= 0) {
+            throw new IllegalArgumentException("Время жизни снимка ленты должно быть положительным");
+        }
+        this.capacity = capacity;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Страница ленты без запросов пользователя userId или пустой Optional, если её нельзя собрать из снимка:
+     * страница уходит глубже capacity последних запросов. Отсутствующий или устаревший снимок
+     * загружается через loader, которому передаётся, сколько последних запросов вернуть.
+     */
+    public Optional<List<ItemRequestWithResponseDto>> findPage(Integer userId, int from, int size,
+                                                               IntFunction<List<ItemRequestWithResponseDto>> loader) {
+        Optional<List<ItemRequestWithResponseDto>> page = findPage(userId, from, size);
+        if (page.isPresent()) {
+            hits.incrementAndGet();
+            return page;
+        }
+        misses.incrementAndGet();
+        if (isFresh()) {
+            return Optional.empty();
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        List<ItemRequestWithResponseDto> latest = loader.apply(capacity + 1);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                complete = latest.size() <= capacity;
+                requests = new ArrayList<>(latest.subList(0, Math.min(latest.size(), capacity)));
+                loadedAt = clock.getAsLong();
+                generation++;
+                log.debug("Загружена лента запросов: {} записей", requests.size());
+            }
+        }
+        return findPage(userId, from, size);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onItemRequestCreated(ItemRequestCreatedEvent event) {
+        generation++;
+        if (requests == null) {
+            return;
+        }
+        ItemRequestWithResponseDto itemRequest = copyOf(event.getItemRequest(), new ArrayList<>());
+        if (indexOf(itemRequest.getId()) >= 0) {
+            return;
+        }
+        int position = 0;
+        while (position < requests.size() && NEWEST_FIRST.compare(requests.get(position), itemRequest) < 0) {
+            position++;
+        }
+        if (position == capacity) {
+            complete = false;
+            return;
+        }
+        requests.add(position, itemRequest);
+        if (requests.size() > capacity) {
+            requests.remove(requests.size() - 1);
+            complete = false;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRequestItemSaved(RequestItemSavedEvent event) {
+        generation++;
+        if (requests == null) {
+            return;
+        }
+        ItemDto item = event.getItem();
+        if (event.getPreviousRequestId() != null && !event.getPreviousRequestId().equals(item.getRequestId())) {
+            replaceItem(event.getPreviousRequestId(), item.getId(), null);
+        }
+        if (item.getRequestId() != null) {
+            replaceItem(item.getRequestId(), item.getId(), item);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Сбрасывает снимок: следующее чтение загрузит ленту из базы.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        requests = null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("shareit.requests.feed.cache.hits", hits, AtomicLong::get)
+                .description("Страницы /requests/all, собранные из снимка без обращения к базе")
+                .register(registry);
+        FunctionCounter.builder("shareit.requests.feed.cache.misses", misses, AtomicLong::get)
+                .description("Страницы /requests/all, которые не удалось собрать из снимка")
+                .register(registry);
+        Gauge.builder("shareit.requests.feed.cache.hit.ratio", this, ItemRequestFeedCache::hitRatio)
+                .description("Доля страниц /requests/all, собранных из снимка")
+                .register(registry);
+        TimeGauge.builder("shareit.requests.feed.cache.staleness", this, TimeUnit.NANOSECONDS,
+                        ItemRequestFeedCache::stalenessNanos)
+                .description("Время с последней загрузки снимка из базы")
+                .register(registry);
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Время с загрузки снимка из базы; 0, если снимка нет.
+     */
+    public synchronized double stalenessNanos() {
+        return requests == null ? 0 : clock.getAsLong() - loadedAt;
+    }
+
+    private synchronized boolean isFresh() {
+        return requests != null && clock.getAsLong() - loadedAt < maxAgeNanos;
+    }
+
+    private synchronized Optional<List<ItemRequestWithResponseDto>> findPage(Integer userId, int from, int size) {
+        if (!isFresh()) {
+            return Optional.empty();
+        }
+        List<ItemRequestWithResponseDto> page = new ArrayList<>();
+        int skipped = 0;
+        for (ItemRequestWithResponseDto itemRequest : requests) {
+            if (itemRequest.getRequestor().equals(userId)) {
+                continue;
+            }
+            if (skipped < from) {
+                skipped++;
+                continue;
+            }
+            page.add(itemRequest);
+            if (page.size() == size) {
+                return Optional.of(page);
+            }
+        }
+        return complete ? Optional.of(page) : Optional.empty();
+    }
+
+    private void replaceItem(Integer requestId, Integer itemId, ItemDto item) {
+        int index = indexOf(requestId);
+        if (index < 0) {
+            return;
+        }
+        ItemRequestWithResponseDto itemRequest = requests.get(index);
+        List<ItemDto> items = new ArrayList<>(itemRequest.getItems().size() + 1);
+        boolean replaced = false;
+        for (ItemDto existing : itemRequest.getItems()) {
+            if (!existing.getId().equals(itemId)) {
+                items.add(existing);
+            } else if (item != null) {
+                items.add(item);
+                replaced = true;
+            }
+        }
+        if (item != null && !replaced) {
+            items.add(item);
+            items.sort(Comparator.comparing(ItemDto::getId));
+        }
+        requests.set(index, copyOf(itemRequest, items));
+    }
+
+    private int indexOf(Integer requestId) {
+        for (int i = 0; i < requests.size(); i++) {
+            if (Objects.equals(requests.get(i).getId(), requestId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ItemRequestWithResponseDto copyOf(ItemRequestWithResponseDto itemRequest, List<ItemDto> items) {
+        return new ItemRequestWithResponseDto(itemRequest.getId(), itemRequest.getDescription(),
+                itemRequest.getRequestor(), itemRequest.getCreated(), items);
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.request;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.TrigramIndex;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.model.RequestSuggestion;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подбирает к новому запросу доступные вещи других пользователей: описание запроса сравнивается
+ * с поисковым индексом по числу общих триграмм, лучшие вещи сохраняются в request_suggestions.
+ * <p>
+ * Подбор выполняется после фиксации транзакции в ограниченном пуле потоков, поэтому создание
+ * запроса его не ждёт. Если очередь пула заполнена, запрос остаётся без подсказок.
+ */
+@Slf4j
+@Component
+public class ItemRequestMatcher {
+    private static final int CANDIDATE_FACTOR = 4;
+
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemRepository itemRepository;
+    private final RequestSuggestionRepository suggestionRepository;
+    private final ExecutorService executor;
+    private final int limit;
+    private final int minSharedTrigrams;
+
+    @Autowired
+    public ItemRequestMatcher(ItemSearchIndex itemSearchIndex,
+                              ItemRepository itemRepository,
+                              RequestSuggestionRepository suggestionRepository,
+                              @Value("${shareit.requests.matching.threads:2}") int threads,
+                              @Value("${shareit.requests.matching.queue-size:1000}") int queueSize,
+                              @Value("${shareit.requests.matching.limit:5}") int limit,
+                              @Value("${shareit.requests.matching.min-shared-trigrams:3}") int minSharedTrigrams) {
+        this(itemSearchIndex, itemRepository, suggestionRepository,
+                newExecutor(threads, queueSize), limit, minSharedTrigrams);
+    }
+
+    ItemRequestMatcher(ItemSearchIndex itemSearchIndex,
+                       ItemRepository itemRepository,
+                       RequestSuggestionRepository suggestionRepository,
+                       ExecutorService executor,
+                       int limit,
+                       int minSharedTrigrams) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Число подсказок должно быть положительным");
+        }
+        if (minSharedTrigrams <= 0) {
+            throw new IllegalArgumentException("Минимальное число общих триграмм должно быть положительным");
+        }
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemRepository = itemRepository;
+        this.suggestionRepository = suggestionRepository;
+        this.executor = executor;
+        this.limit = limit;
+        this.minSharedTrigrams = minSharedTrigrams;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemRequestCreated(ItemRequestCreatedEvent event) {
+        ItemRequestWithResponseDto itemRequest = event.getItemRequest();
+        try {
+            executor.execute(() -> match(itemRequest));
+        } catch (RejectedExecutionException e) {
+            log.warn("Очередь подбора вещей заполнена, запрос с Id = {} остался без подсказок", itemRequest.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void match(ItemRequestWithResponseDto itemRequest) {
+        if (!itemSearchIndex.canSearch(itemRequest.getDescription())) {
+            log.debug("Подбор вещей к запросу с Id = {} пропущен: индекс не готов или описание короткое",
+                    itemRequest.getId());
+            return;
+        }
+        try {
+            List<TrigramIndex.Match> matches = itemSearchIndex.findSimilar(itemRequest.getDescription(),
+                    limit * CANDIDATE_FACTOR, minSharedTrigrams);
+            if (matches.isEmpty()) {
+                return;
+            }
+            List<Integer> candidateIds = new ArrayList<>(matches.size());
+            for (TrigramIndex.Match match : matches) {
+                candidateIds.add(match.getId());
+            }
+            Set<Integer> allowedIds = new HashSet<>(itemRepository.findAvailableIdsNotOwnedBy(candidateIds,
+                    itemRequest.getRequestor()));
+
+            List<RequestSuggestion> suggestions = new ArrayList<>(limit);
+            for (TrigramIndex.Match match : matches) {
+                if (allowedIds.contains(match.getId())) {
+                    suggestions.add(new RequestSuggestion(null, itemRequest.getId(), match.getId(),
+                            match.getSharedTrigrams()));
+                    if (suggestions.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            suggestionRepository.saveAll(suggestions);
+            log.debug("К запросу с Id = {} подобрано вещей: {}", itemRequest.getId(), suggestions.size());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось подобрать вещи к запросу с Id = {}: {}", itemRequest.getId(), e.getMessage());
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads, int queueSize) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков подбора должно быть положительным");
+        }
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("Размер очереди подбора должен быть положительным");
+        }
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("request-matching-"));
+    }
+}
@@ -1,16 +1,45 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.streaming.StreamingRepository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ItemRequestRepository extends JpaRepository<ItemRequest, Integer> {
-    List<ItemRequest> findAllByRequestorIdOrderByCreatedDesc(Integer userId);
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
-    Page<ItemRequest> findAllByRequestorIdNotOrderByCreatedDesc(Integer userId, Pageable page);
+public interface ItemRequestRepository extends JpaRepository<ItemRequest, Integer>, StreamingRepository {
+    List<ItemRequest> findAllByRequestorIdOrderByCreatedDesc(Integer userId);
 
     List<ItemRequest> findAllByRequestorIdNotOrderByCreatedDesc(Integer userId);
+
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestWithResponseDto(r.id, r.description, " +
+            "r.requestor.id, r.created) from ItemRequest r where r.id = :requestId")
+    Optional<ItemRequestWithResponseDto> findDtoById(@Param("requestId") Integer requestId);
+
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestWithResponseDto(r.id, r.description, " +
+            "r.requestor.id, r.created) from ItemRequest r where r.requestor.id = :userId order by r.created desc")
+    List<ItemRequestWithResponseDto> findDtosByRequestorId(@Param("userId") Integer userId);
+
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestWithResponseDto(r.id, r.description, " +
+            "r.requestor.id, r.created) from ItemRequest r where r.requestor.id <> :userId order by r.created desc")
+    List<ItemRequestWithResponseDto> findDtosByRequestorIdNot(@Param("userId") Integer userId, Pageable page);
+
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestWithResponseDto(r.id, r.description, " +
+            "r.requestor.id, r.created) from ItemRequest r order by r.created desc, r.id desc")
+    List<ItemRequestWithResponseDto> findLatestDtos(Pageable page);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE))
+    Stream<ItemRequest> streamAllByRequestorIdOrderByCreatedDesc(Integer userId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE))
+    Stream<ItemRequest> streamAllByRequestorIdNotOrderByCreatedDesc(Integer userId);
 }
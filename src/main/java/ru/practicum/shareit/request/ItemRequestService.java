@@ -2,31 +2,48 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemRequestService {
+    private static final int STREAM_CHUNK_SIZE = 100;
+
     private final ItemService itemService;
     private final UserService userService;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemRequestFeedCache itemRequestFeedCache;
+    private final RequestAnswerNotifier requestAnswerNotifier;
+    private final RequestSuggestionRepository suggestionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ItemRequest createItemRequest(Integer userId, ItemRequestDto itemRequestDto) {
         validateRequiredFields(itemRequestDto);
@@ -34,51 +51,122 @@ public class ItemRequestService {
         User user = userService.findUserById(userId);
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDto);
         itemRequest.setRequestor(user);
-        return itemRequestRepository.save(itemRequest);
+        ItemRequest savedItemRequest = itemRequestRepository.save(itemRequest);
+        eventPublisher.publishEvent(new ItemRequestCreatedEvent(new ItemRequestWithResponseDto(savedItemRequest.getId(),
+                savedItemRequest.getDescription(), user.getId(), savedItemRequest.getCreated())));
+        return savedItemRequest;
     }
 
     public List<ItemRequestWithResponseDto> findAllItemRequestsOfUser(Integer userId) {
-        List<ItemRequestWithResponseDto> itemRequestWithResponseDtos = new ArrayList<>();
         userService.findUserById(userId);
-        List<ItemRequest> itemRequests = itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(userId);
-        for (ItemRequest itemRequest : itemRequests) {
-            List<Item> items = itemService.findAllItemsByRequest(itemRequest.getId());
-            itemRequestWithResponseDtos.add(ItemRequestMapper.toItemRequestWithResponseDto(itemRequest, items));
-        }
-        return itemRequestWithResponseDtos;
+        List<ItemRequestWithResponseDto> itemRequests = itemRequestRepository.findDtosByRequestorId(userId);
+        setItems(itemRequests);
+        return itemRequests;
     }
 
     public ItemRequestWithResponseDto findItemRequestWithResponseById(Integer userId, Integer requestId) {
         userService.findUserById(userId);
-        ItemRequest itemRequest = itemRequestRepository.findById(requestId).orElseThrow(() -> {
+        ItemRequestWithResponseDto itemRequest = itemRequestRepository.findDtoById(requestId).orElseThrow(() -> {
             log.error("Запрос с Id = {} не существует", requestId);
             throw new EntityNotFoundException("Запрос с таким Id не существует");
         });
-        List<Item> items = itemService.findAllItemsByRequest(requestId);
-        return ItemRequestMapper.toItemRequestWithResponseDto(itemRequest, items);
+        itemRequest.setItems(itemService.findAllItemsByRequest(requestId));
+        return itemRequest;
     }
 
     public List<ItemRequestWithResponseDto> findAllItemRequestsOfOtherUsers(Integer userId, Integer from, Integer size) {
         userService.findUserById(userId);
-        List<ItemRequest> itemRequests;
-        List<ItemRequestWithResponseDto> itemRequestWithResponseDtos = new ArrayList<>();
-
         if (from < 0 || size <= 0) {
             log.error("Некорректные значения параметров from = {}, size={}", from, size);
             throw new ValidationException("Некорректные значения параметров from/size");
         }
 
+        Optional<List<ItemRequestWithResponseDto>> cachedPage = itemRequestFeedCache.findPage(userId,
+                from / size * size, size, this::findLatestItemRequests);
+        if (cachedPage.isPresent()) {
+            return cachedPage.get();
+        }
+
         Sort sortByCreated = Sort.by(Sort.Direction.DESC, "created");
         Pageable page = PageRequest.of(from / size, size, sortByCreated);
-        Page<ItemRequest> itemRequestPage = itemRequestRepository.findAllByRequestorIdNotOrderByCreatedDesc(userId, page);
-        itemRequests = itemRequestPage.getContent();
+        List<ItemRequestWithResponseDto> itemRequests = itemRequestRepository.findDtosByRequestorIdNot(userId, page);
+        setItems(itemRequests);
+        return itemRequests;
+    }
+
+    /**
+     * Вещи других пользователей, подобранные к запросу по описанию. Подбор выполняется асинхронно
+     * после создания запроса, поэтому сразу после него список может быть пуст.
+     */
+    public List<ItemDto> findSuggestedItems(Integer userId, Integer requestId) {
+        userService.findUserById(userId);
+        if (!itemRequestRepository.existsById(requestId)) {
+            log.error("Запрос с Id = {} не существует", requestId);
+            throw new EntityNotFoundException("Запрос с таким Id не существует");
+        }
+        return suggestionRepository.findItemDtosByRequestId(requestId);
+    }
+
+    /**
+     * Подписка на вещи, которые будут привязаны к запросам пользователя.
+     */
+    public SseEmitter subscribeToAnswers(Integer userId) {
+        userService.findUserById(userId);
+        return requestAnswerNotifier.subscribe(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllItemRequestsOfUser(Integer userId, Consumer<ItemRequestWithResponseDto> consumer) {
+        userService.findUserById(userId);
+        try (Stream<ItemRequest> itemRequests = itemRequestRepository.streamAllByRequestorIdOrderByCreatedDesc(userId)) {
+            streamWithItems(itemRequests, consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllItemRequestsOfOtherUsers(Integer userId, Consumer<ItemRequestWithResponseDto> consumer) {
+        userService.findUserById(userId);
+        try (Stream<ItemRequest> itemRequests = itemRequestRepository.streamAllByRequestorIdNotOrderByCreatedDesc(userId)) {
+            streamWithItems(itemRequests, consumer);
+        }
+    }
+
+    private List<ItemRequestWithResponseDto> findLatestItemRequests(int limit) {
+        List<ItemRequestWithResponseDto> itemRequests = itemRequestRepository.findLatestDtos(PageRequest.of(0, limit));
+        setItems(itemRequests);
+        return itemRequests;
+    }
 
-        for (ItemRequest itemRequest : itemRequests) {
-            List<Item> items = itemService.findAllItemsByRequest(itemRequest.getId());
-            itemRequestWithResponseDtos.add(ItemRequestMapper.toItemRequestWithResponseDto(itemRequest, items));
+    private void setItems(List<ItemRequestWithResponseDto> itemRequests) {
+        List<Integer> requestIds = new ArrayList<>(itemRequests.size());
+        for (ItemRequestWithResponseDto itemRequest : itemRequests) {
+            requestIds.add(itemRequest.getId());
         }
+        Map<Integer, List<ItemDto>> items = itemService.findAllItemDtosByRequests(requestIds);
+        for (ItemRequestWithResponseDto itemRequest : itemRequests) {
+            itemRequest.setItems(items.getOrDefault(itemRequest.getId(), new ArrayList<>()));
+        }
+    }
 
-        return itemRequestWithResponseDtos;
+    private void streamWithItems(Stream<ItemRequest> itemRequests, Consumer<ItemRequestWithResponseDto> consumer) {
+        List<ItemRequest> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        Iterator<ItemRequest> iterator = itemRequests.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                Set<Integer> requestIds = new HashSet<>();
+                for (ItemRequest itemRequest : chunk) {
+                    requestIds.add(itemRequest.getId());
+                }
+                Map<Integer, List<Item>> items = itemService.findAllItemsByRequests(requestIds);
+                for (ItemRequest itemRequest : chunk) {
+                    consumer.accept(ItemRequestMapper.toItemRequestWithResponseDto(itemRequest,
+                            items.getOrDefault(itemRequest.getId(), new ArrayList<>())));
+                }
+                chunk.clear();
+                itemRequestRepository.detachAll();
+            }
+        }
     }
 
     private void validateRequiredFields(ItemRequestDto itemRequestDto) {
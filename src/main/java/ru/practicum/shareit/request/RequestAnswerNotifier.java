@@ -0,0 +1,139 @@
+package ru.practicum.shareit.request;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.event.RequestItemSavedEvent;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подписки авторов запросов на ответы: когда вещь привязывается к запросу, её автору
+ * отправляется server-sent event с ItemDto. Подписка держит только асинхронный ответ сервлета,
+ * поток на ожидающего клиента не выделяется. Событие приходит после фиксации транзакции,
+ * поэтому клиент не увидит вещь, которая не сохранилась.
+ * <p>
+ * Рассылка выполняется в небольшом пуле с ограниченной очередью, а не в потоке, сохранившем вещь:
+ * медленный подписчик не задерживает запрос владельца. Если очередь заполнена, событие не отправляется.
+ */
+@Slf4j
+@Component
+public class RequestAnswerNotifier {
+    public static final String EVENT_NAME = "item";
+
+    private final long timeoutMillis;
+    private final Executor executor;
+    private final ConcurrentMap<Integer, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequestAnswerNotifier(@Value("${shareit.requests.stream.timeout-ms:1800000}") long timeoutMillis,
+                                 @Value("${shareit.requests.stream.threads:2}") int threads,
+                                 @Value("${shareit.requests.stream.queue-size:1000}") int queueSize) {
+        this(timeoutMillis, newExecutor(threads, queueSize));
+    }
+
+    RequestAnswerNotifier(long timeoutMillis, Executor executor) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Время подписки должно быть положительным");
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.executor = executor;
+    }
+
+    public SseEmitter subscribe(Integer userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribers.compute(userId, (id, emitters) -> {
+            Set<SseEmitter> result = emitters == null ? new CopyOnWriteArraySet<>() : emitters;
+            result.add(emitter);
+            return result;
+        });
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(() -> unsubscribe(userId, emitter));
+        emitter.onError(e -> unsubscribe(userId, emitter));
+        log.debug("Пользователь с Id = {} подписался на ответы на свои запросы", userId);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        int count = 0;
+        for (Set<SseEmitter> emitters : subscribers.values()) {
+            count += emitters.size();
+        }
+        return count;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRequestItemSaved(RequestItemSavedEvent event) {
+        Integer requestId = event.getItem().getRequestId();
+        if (requestId == null || (!event.isCreated() && requestId.equals(event.getPreviousRequestId()))) {
+            return;
+        }
+        Set<SseEmitter> emitters = subscribers.get(event.getRequestorId());
+        if (emitters == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> send(event.getRequestorId(), emitters, event.getItem()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Очередь рассылки ответов заполнена, вещь с Id = {} не отправлена пользователю с Id = {}",
+                    event.getItem().getId(), event.getRequestorId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void send(Integer userId, Set<SseEmitter> emitters, ItemDto item) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(EVENT_NAME)
+                        .id(String.valueOf(item.getId()))
+                        .data(item, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Подписчик пользователя с Id = {} отключился: {}", userId, e.getMessage());
+                unsubscribe(userId, emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads, int queueSize) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков рассылки должно быть положительным");
+        }
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("Размер очереди рассылки должен быть положительным");
+        }
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("request-answers-"));
+    }
+
+    private void unsubscribe(Integer userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
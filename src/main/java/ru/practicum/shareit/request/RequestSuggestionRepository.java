@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.model.RequestSuggestion;
+
+import java.util.List;
+
+public interface RequestSuggestionRepository extends JpaRepository<RequestSuggestion, Integer> {
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.id) " +
+            "from RequestSuggestion s, Item i left join i.request r " +
+            "where i.id = s.itemId and s.requestId = :requestId and i.available = true " +
+            "order by s.score desc, i.id")
+    List<ItemDto> findItemDtosByRequestId(@Param("requestId") Integer requestId);
+}
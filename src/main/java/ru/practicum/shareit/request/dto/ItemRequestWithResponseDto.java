@@ -17,4 +17,11 @@ public class ItemRequestWithResponseDto {
     private Integer requestor;
     private LocalDateTime created;
     private List<ItemDto> items;
+
+    /**
+     * Конструктор для выборки запроса сразу в DTO; ответы на запрос заполняются отдельно.
+     */
+    public ItemRequestWithResponseDto(Integer id, String description, Integer requestor, LocalDateTime created) {
+        this(id, description, requestor, created, null);
+    }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.request.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+
+/**
+ * Создан запрос вещи. Слушатели получают событие после фиксации транзакции.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ItemRequestCreatedEvent {
+    private final ItemRequestWithResponseDto itemRequest;
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.request.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+/**
+ * Сохранена вещь, которая отвечает на запрос или отвечала на него до изменения.
+ * Слушатели получают событие после фиксации транзакции.
+ */
+@Getter
+@RequiredArgsConstructor
+public class RequestItemSavedEvent {
+    private final ItemDto item;
+    /**
+     * Запрос, на который вещь отвечала до изменения, или null для новой вещи.
+     */
+    private final Integer previousRequestId;
+    /**
+     * Автор запроса item.requestId или null, если вещь больше не отвечает на запрос.
+     */
+    private final Integer requestorId;
+    private final boolean created;
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.request.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Вещь, подобранная к запросу по сходству описания. score — число общих триграмм описания запроса
+ * и текста вещи; чем оно больше, тем выше вещь в подсказках.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+@Entity
+@Table(name = "request_suggestions")
+public class RequestSuggestion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "request_id")
+    private Integer requestId;
+
+    @Column(name = "item_id")
+    private Integer itemId;
+
+    private Integer score;
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.streaming;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разрешает отдавать JSON клиенту, который принимает только application/x-ndjson:
+ * без этого ответ об ошибке потокового запроса не может быть записан.
+ */
+@Configuration
+public class NdjsonWebConfig implements WebMvcConfigurer {
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter) {
+                MappingJackson2HttpMessageConverter jsonConverter = (MappingJackson2HttpMessageConverter) converter;
+                List<MediaType> mediaTypes = new ArrayList<>(jsonConverter.getSupportedMediaTypes());
+                mediaTypes.add(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE));
+                jsonConverter.setSupportedMediaTypes(mediaTypes);
+            }
+        }
+    }
+}
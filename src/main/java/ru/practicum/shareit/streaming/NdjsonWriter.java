@@ -0,0 +1,40 @@
+package ru.practicum.shareit.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Пишет объекты в поток по одному JSON-документу на строку (application/x-ndjson),
+ * не собирая ответ в памяти целиком.
+ */
+public class NdjsonWriter {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ObjectWriter objectWriter;
+    private final OutputStream outputStream;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+        this.objectWriter = objectMapper.writer();
+        this.outputStream = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+    }
+
+    public void write(Object value) {
+        try {
+            outputStream.write(objectWriter.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+}
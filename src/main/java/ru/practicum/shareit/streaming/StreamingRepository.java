@@ -0,0 +1,11 @@
+package ru.practicum.shareit.streaming;
+
+public interface StreamingRepository {
+    String FETCH_SIZE = "500";
+
+    /**
+     * Отсоединяет от контекста все загруженные сущности, чтобы при выгрузке
+     * большого потока память не росла вместе с числом прочитанных строк.
+     */
+    void detachAll();
+}
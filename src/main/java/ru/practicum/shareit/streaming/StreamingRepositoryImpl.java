@@ -0,0 +1,14 @@
+package ru.practicum.shareit.streaming;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+public class StreamingRepositoryImpl implements StreamingRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void detachAll() {
+        entityManager.clear();
+    }
+}
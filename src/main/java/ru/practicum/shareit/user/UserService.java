@@ -2,11 +2,16 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.ConflictValidationException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
@@ -17,6 +22,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userStorage;
+    private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<User> findAllUsers() {
         return userStorage.findAll();
@@ -45,11 +52,9 @@ public class UserService {
     public User updateUser(Integer userId, UserDto newUser) {
         validateUserId(userId);
         validateUserFieldsFormat(newUser.getEmail(), newUser.getName());
-        for (User user : userStorage.findAll()) {
-            if (user.getEmail().equals(newUser.getEmail()) && !user.getId().equals(userId)) {
-                log.warn("Пользователь с такой Электронной почтой уже есть в системе");
-                throw new ConflictValidationException("Пользователь с такой Электронной почтой уже есть в системе");
-            }
+        if (newUser.getEmail() != null && userStorage.existsByEmailAndIdNot(newUser.getEmail(), userId)) {
+            log.warn("Пользователь с такой Электронной почтой уже есть в системе");
+            throw new ConflictValidationException("Пользователь с такой Электронной почтой уже есть в системе");
         }
 
         User user = findUserById(userId);
@@ -60,13 +65,21 @@ public class UserService {
         if (newUser.getName() != null) {
             user.setName(newUser.getName());
         }
-        return userStorage.save(user);
+        try {
+            return userStorage.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Почту заняли между проверкой и сохранением: сработало ограничение UQ_USER_EMAIL
+            log.warn("Пользователь с такой Электронной почтой уже есть в системе");
+            throw new ConflictValidationException("Пользователь с такой Электронной почтой уже есть в системе");
+        }
     }
 
     public void deleteUser(Integer userId) {
         validateUserId(userId);
         User user = findUserById(userId);
+        List<Item> items = itemRepository.findAllByOwnerId(userId);
         userStorage.delete(user);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId, items));
     }
 
     private void validateUserFieldsFormat(String email2, String name) {
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.user.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+/**
+ * Удалён пользователь; его запросы и вещи база удалила каскадно. Вещи прочитаны до удаления,
+ * чтобы их можно было убрать из структур в памяти.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserDeletedEvent {
+    private final Integer userId;
+    private final List<Item> items;
+}
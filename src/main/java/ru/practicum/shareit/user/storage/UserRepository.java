@@ -4,4 +4,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.user.model.User;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
+    boolean existsByEmailAndIdNot(String email, Integer id);
 }
@@ -41,4 +41,4 @@ CREATE TABlE IF NOT EXISTS comments
     author_id INTEGER REFERENCES users (id) ON DELETE CASCADE,
     item_id   INTEGER REFERENCES items (id) ON DELETE CASCADE,
     created   TIMESTAMP
-);
\ No newline at end of file
+);
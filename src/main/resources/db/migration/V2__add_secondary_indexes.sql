@@ -0,0 +1,19 @@
+-- Списки бронирований пользователя: booker_id = ? order by end_date desc
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_end ON bookings (booker_id, end_date);
+
+-- Отзывы: бронирование пользователем вещи, завершённое до момента времени
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_item_end ON bookings (booker_id, item_id, end_date);
+
+-- Последнее и следующее бронирование вещей: item_id in (...) and status = ? and start_date </> ?
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+
+-- Бронирования вещей владельца: join items on owner_id, order by end_date desc
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS idx_requests_requestor_created ON requests (requestor_id, created);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
@@ -0,0 +1,2 @@
+-- Поиск просроченных бронирований в статусе WAITING: status = ? and start_date < ?
+CREATE INDEX IF NOT EXISTS idx_bookings_status_start ON bookings (status, start_date);
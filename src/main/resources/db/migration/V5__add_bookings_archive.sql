@@ -0,0 +1,20 @@
+-- Завершённые давно бронирования переносятся сюда порциями, чтобы bookings и его индексы оставались небольшими
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         INTEGER PRIMARY KEY,
+    start_date TIMESTAMP NOT NULL,
+    end_date   TIMESTAMP,
+    status     VARCHAR(30),
+    booker_id  INTEGER REFERENCES users (id) ON DELETE CASCADE,
+    item_id    INTEGER REFERENCES items (id) ON DELETE CASCADE,
+    version    INTEGER   NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_end ON bookings_archive (booker_id, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_end ON bookings_archive (item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_item_end ON bookings_archive (booker_id, item_id, end_date);
+
+-- Поиск бронирований для архивации: end_date < ? order by end_date, id
+CREATE INDEX IF NOT EXISTS idx_bookings_end ON bookings (end_date);
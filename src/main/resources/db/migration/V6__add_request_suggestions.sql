@@ -0,0 +1,11 @@
+-- Доступные вещи, подобранные к запросу по сходству описания; заполняется асинхронно после создания запроса
+CREATE TABLE IF NOT EXISTS request_suggestions
+(
+    id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    request_id INTEGER NOT NULL REFERENCES requests (id) ON DELETE CASCADE,
+    item_id    INTEGER NOT NULL REFERENCES items (id) ON DELETE CASCADE,
+    score      INTEGER NOT NULL,
+    CONSTRAINT uq_request_suggestions_request_item UNIQUE (request_id, item_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_request_suggestions_item ON request_suggestions (item_id);
@@ -0,0 +1,73 @@
+package ru.practicum.shareit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Общие части бенчмарков, которые запускаются с -Dshareit.benchmark=true: заполнение таблиц
+ * через system_range, медиана замеров и сравнение с запасом. Медиана сглаживает колебания
+ * на общем CI; запас нужен только там, где проверяется порядок величин, а не выигрыш.
+ */
+public final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    public static void insertBookings(JdbcTemplate jdbcTemplate, Integer bookerId, Integer itemId, int count) {
+        jdbcTemplate.update("insert into bookings (start_date, end_date, status, booker_id, item_id) " +
+                "select dateadd('MINUTE', x * 60, timestamp '2000-01-01 00:00:00'), " +
+                "dateadd('MINUTE', x * 60 + 30, timestamp '2000-01-01 00:00:00'), '1', ?, ? " +
+                "from system_range(1, ?)", bookerId, itemId, count);
+    }
+
+    /**
+     * Пользователи с почтой user{x}@mail.ru для x из [from, from + count).
+     */
+    public static void insertUsers(JdbcTemplate jdbcTemplate, int from, int count) {
+        jdbcTemplate.update("insert into users (name, email) " +
+                "select 'user' || x, 'user' || x || '@mail.ru' from system_range(?, ?)", from, from + count - 1);
+    }
+
+    /**
+     * Медиана iterations замеров после warmup прогонов.
+     */
+    public static long median(int warmup, int iterations, LongSupplier sample) {
+        for (int i = 0; i < warmup; i++) {
+            sample.getAsLong();
+        }
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            samples[i] = sample.getAsLong();
+        }
+        Arrays.sort(samples);
+        return samples[iterations / 2];
+    }
+
+    public static long nanosOf(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Память, выделенная текущим потоком на action.
+     */
+    public static long allocatedBytesOf(Runnable action) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        action.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    /**
+     * Проверяет, что value не больше baseline, умноженного на factor.
+     */
+    public static void assertWithin(long value, long baseline, int factor, String message) {
+        assertTrue(value <= baseline * factor, message + ": " + value + " > " + baseline + " * " + factor);
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет планы запросов на H2: каждая таблица должна читаться по индексу с условием, без полного
+ * просмотра. H2 сам выбирает между индексами из миграций и индексами внешних ключей, поэтому имя
+ * индекса здесь не проверяется.
+ */
+@DataJpaTest
+public class SchemaIndexesTest {
+    // H2 помечает доступ к таблице комментарием вида /* PUBLIC.INDEX_NAME: CONDITION */
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* PUBLIC\\.([\\w.]+)(:)?");
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void bookingsOfBookerUseIndex() {
+        assertIndexScan("select * from bookings b where b.booker_id = 1 " +
+                "order by b.end_date desc, b.id desc limit 10");
+    }
+
+    @Test
+    void bookingsOfOwnerItemsUseIndexes() {
+        assertIndexScan("select b.* from bookings b join items i on i.id = b.item_id where i.owner_id = 1 " +
+                "order by b.end_date desc, b.id desc limit 10");
+    }
+
+    @Test
+    void lastAndNextBookingsOfItemsUseIndex() {
+        assertIndexScan("select * from bookings b where b.item_id in (1, 2) and b.status = '1' " +
+                "and b.start_date < timestamp '2024-05-25 12:00:00'");
+    }
+
+    @Test
+    void finishedBookingOfItemUseIndex() {
+        assertIndexScan("select * from bookings b where b.booker_id = 1 and b.item_id = 2 " +
+                "and b.end_date < timestamp '2024-05-25 12:00:00' limit 1");
+    }
+
+    @Test
+    void overdueWaitingBookingsUseIndex() {
+        assertIndexScan("select b.id from bookings b where b.status = '0' " +
+                        "and b.start_date < timestamp '2024-05-25 12:00:00' order by b.id limit 500");
+    }
+
+    @Test
+    void finishedBookingsToArchiveUseIndex() {
+        assertIndexScan("select b.id from bookings b where b.end_date < timestamp '2023-05-25 12:00:00' " +
+                "order by b.end_date, b.id limit 500");
+    }
+
+    @Test
+    void recentlyFinishedBookingsUseIndex() {
+        assertIndexScan("select b.booker_id, b.item_id from bookings b " +
+                "where b.end_date >= timestamp '2024-05-25 12:00:00' and b.end_date < timestamp '2024-05-25 12:01:00' " +
+                "order by b.end_date desc limit 500");
+    }
+
+    @Test
+    void archivedBookingsOfBookerUseIndex() {
+        assertIndexScan("select * from bookings_archive b where b.booker_id = 1 " +
+                "order by b.end_date desc, b.id desc limit 10");
+    }
+
+    @Test
+    void itemsOfOwnerUseIndex() {
+        assertIndexScan("select * from items i where i.owner_id = 1 order by i.id");
+    }
+
+    @Test
+    void itemsOfRequestsUseIndex() {
+        assertIndexScan("select * from items i where i.request_id in (1, 2)");
+    }
+
+    @Test
+    void requestsOfUserUseIndex() {
+        assertIndexScan("select * from requests r where r.requestor_id = 1 order by r.created desc");
+    }
+
+    @Test
+    void suggestionsOfRequestUseIndex() {
+        assertIndexScan("select * from request_suggestions s where s.request_id = 1");
+    }
+
+    @Test
+    void commentsOfItemsUseIndex() {
+        assertIndexScan("select * from comments c where c.item_id in (1, 2)");
+    }
+
+    private void assertIndexScan(String sql) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+
+        assertFalse(plan.toLowerCase(Locale.ROOT).contains("tablescan"), plan);
+        Matcher tableAccess = TABLE_ACCESS.matcher(plan);
+        int tables = 0;
+        while (tableAccess.find()) {
+            tables++;
+            assertNotNull(tableAccess.group(2), "Таблица читается без условия по индексу " +
+                    tableAccess.group(1) + ":\n" + plan);
+        }
+        assertTrue(tables > 0, plan);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BookingArchiveJobTest {
+    private BookingRepository bookingRepository;
+    private BookingArchiver bookingArchiver;
+    private BookingArchiveJob job;
+    private LocalDateTime cutoff;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        bookingArchiver = mock(BookingArchiver.class);
+        job = new BookingArchiveJob(bookingRepository, bookingArchiver, 12, 2, 0);
+        cutoff = LocalDateTime.now().minusMonths(12);
+    }
+
+    @Test
+    void archiveInBatches() {
+        when(bookingRepository.findIdsByEndBefore(cutoff, PageRequest.of(0, 2)))
+                .thenReturn(List.of(1, 2))
+                .thenReturn(List.of(3));
+        when(bookingArchiver.archive(any()))
+                .thenReturn(2)
+                .thenReturn(1);
+
+        assertEquals(3, job.archiveEndedBefore(cutoff));
+
+        verify(bookingArchiver, times(1)).archive(List.of(1, 2));
+        verify(bookingArchiver, times(1)).archive(List.of(3));
+        verify(bookingRepository, times(2)).findIdsByEndBefore(any(), any());
+    }
+
+    @Test
+    void archiveNothing() {
+        when(bookingRepository.findIdsByEndBefore(any(), any())).thenReturn(Collections.emptyList());
+
+        assertEquals(0, job.archiveEndedBefore(cutoff));
+        verify(bookingArchiver, times(0)).archive(any());
+    }
+
+    @Test
+    void parametersValidation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookingArchiveJob(bookingRepository, bookingArchiver, 0, 2, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookingArchiveJob(bookingRepository, bookingArchiver, 12, 0, 0));
+    }
+}
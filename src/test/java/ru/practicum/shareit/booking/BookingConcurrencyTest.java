@@ -0,0 +1,144 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class BookingConcurrencyTest {
+    private static final int APPROVALS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private List<JpaRepository> repositoryList;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        repositoryList.forEach(CrudRepository::deleteAll);
+        owner = userRepository.save(new User(null, "owner@owner.ru", "owner"));
+        User booker = userRepository.save(new User(null, "booker@booker.ru", "booker"));
+        Item item = new Item("name", "description", true);
+        item.setOwner(owner);
+        item = itemRepository.save(item);
+
+        booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingState.WAITING);
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+        booking = bookingRepository.save(booking);
+    }
+
+    @Test
+    void onlyOneParallelApprovalWins() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger rejectedAsProcessed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < APPROVALS; i++) {
+            boolean isApproved = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookingService.updateBooking(owner.getId(), booking.getId(), isApproved);
+                    approved.incrementAndGet();
+                } catch (ValidationException | ObjectOptimisticLockingFailureException e) {
+                    rejectedAsProcessed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, approved.get());
+        assertEquals(APPROVALS - 1, rejectedAsProcessed.get());
+        Booking result = bookingRepository.findById(booking.getId()).orElseThrow();
+        assertNotEquals(BookingState.WAITING, result.getStatus());
+        assertEquals(1, result.getVersion());
+    }
+
+    @Test
+    void approvalRereadsBookingCachedByOpenSession() {
+        // Как при open-in-view: контекст привязан к потоку и переживает транзакции
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            assertEquals(BookingState.WAITING, bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+            bookingRepository.updateStatus(List.of(booking.getId()), BookingState.WAITING, BookingState.APPROVED);
+
+            ValidationException e = assertThrows(ValidationException.class,
+                    () -> bookingService.updateBooking(owner.getId(), booking.getId(), false));
+            assertEquals("Запрос на бронирования был обработан ранее", e.getMessage());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+        assertEquals(BookingState.APPROVED, bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void staleUpdateFailsWithOptimisticLock() {
+        Booking first = bookingRepository.findById(booking.getId()).orElseThrow();
+        Booking stale = bookingRepository.findById(booking.getId()).orElseThrow();
+
+        first.setStatus(BookingState.APPROVED);
+        bookingRepository.save(first);
+        stale.setStatus(BookingState.REJECTED);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingRepository.save(stale));
+        assertEquals(BookingState.APPROVED, bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+    }
+}
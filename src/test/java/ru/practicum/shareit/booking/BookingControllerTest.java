@@ -7,26 +7,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.exception.IncorrectStateException;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.streaming.NdjsonWriter;
 import ru.practicum.shareit.user.model.User;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.Collections;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(BookingController.class)
 @AutoConfigureMockMvc
+@Import(IdempotencyStore.class)
 public class BookingControllerTest {
 
     @MockBean
@@ -37,24 +47,81 @@ public class BookingControllerTest {
 
     @Test
     void getAllBookingsOfUserWithDefaultPageParamsOk() throws Exception {
-        when(bookingService.findAllBookingsOfUser(1, "ALL", 0, 1000000)).thenReturn(Collections.emptyList());
+        when(bookingService.findAllBookingsOfUser(1, "ALL", 0, 1000000, null)).thenReturn(Collections.emptyList());
         mockMvc.perform(get("/bookings")
                 .header("X-Sharer-User-Id", 1)
                 .param("state", "ALL"))
                 .andExpect(status().isOk())
                 .andExpect(content().json("[]"));
-        verify(bookingService, times(1)).findAllBookingsOfUser(1, "ALL", 0, 1000000);
+        verify(bookingService, times(1)).findAllBookingsOfUser(1, "ALL", 0, 1000000, null);
+    }
+
+    @Test
+    void getAllBookingsOfUserReturnsNextCursor() throws Exception {
+        Booking booking = new Booking(1,
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 45),
+                new Item("book", "book for read", Boolean.TRUE),
+                new User(1, "user@ya.ru", "Irina"),
+                BookingState.APPROVED);
+        String after = PageCursor.of(LocalDateTime.of(2024, Month.MAY, 26, 12, 45), 2).encode();
+        when(bookingService.findAllBookingsOfUser(1, "ALL", 0, 1, after)).thenReturn(Collections.singletonList(BookingMapper.toDto(booking)));
+        mockMvc.perform(get("/bookings")
+                .header("X-Sharer-User-Id", 1)
+                .param("size", "1")
+                .param("after", after))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER,
+                        PageCursor.of(booking.getEnd(), booking.getId()).encode()));
+        verify(bookingService, times(1)).findAllBookingsOfUser(1, "ALL", 0, 1, after);
+    }
+
+    @Test
+    void streamAllBookingsOfOwnerItemsOk() throws Exception {
+        Booking booking = new Booking(1,
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 45),
+                new Item("book", "book for read", Boolean.TRUE),
+                new User(1, "user@ya.ru", "Irina"),
+                BookingState.APPROVED);
+        doAnswer(invocationOnMock -> {
+            Consumer<BookingDtoResponse> consumer = invocationOnMock.getArgument(2);
+            consumer.accept(BookingMapper.toDto(booking));
+            consumer.accept(BookingMapper.toDto(booking));
+            return null;
+        }).when(bookingService).streamAllBookingsOfOwnerItems(eq(1), eq("ALL"), any());
+
+        mockMvc.perform(get("/bookings/owner")
+                .header("X-Sharer-User-Id", 1)
+                .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(content().string(matchesPattern("(\\{\"id\":1,[^\n]*\\}\n){2}")));
+        verify(bookingService, times(0)).findAllBookingsOfOwnerItems(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void streamAllBookingsOfUserUnknownState() throws Exception {
+        doThrow(new IncorrectStateException("Unknown state: BEE"))
+                .when(bookingService).streamAllBookingsOfUser(eq(1), eq("BEE"), any());
+
+        mockMvc.perform(get("/bookings")
+                .header("X-Sharer-User-Id", 1)
+                .param("state", "BEE")
+                .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Unknown state: BEE")));
     }
 
     @Test
     void getAllBookingsOfOwnerItemsWithDefaultPageParamsOk() throws Exception {
-        when(bookingService.findAllBookingsOfOwnerItems(1, "ALL", 0, 1000000)).thenReturn(Collections.emptyList());
+        when(bookingService.findAllBookingsOfOwnerItems(1, "ALL", 0, 1000000, null)).thenReturn(Collections.emptyList());
         mockMvc.perform(get("/bookings/owner")
                 .header("X-Sharer-User-Id", 1)
                 .param("state", "ALL"))
                 .andExpect(status().isOk())
                 .andExpect(content().json("[]"));
-        verify(bookingService, times(1)).findAllBookingsOfOwnerItems(1, "ALL", 0, 1000000);
+        verify(bookingService, times(1)).findAllBookingsOfOwnerItems(1, "ALL", 0, 1000000, null);
     }
 
     @Test
@@ -116,6 +183,16 @@ public class BookingControllerTest {
         verify(bookingService, times(1)).updateBooking(2, 1, Boolean.TRUE);
     }
 
+    @Test
+    void updateBookingConcurrentlyModifiedReturnsConflict() throws Exception {
+        when(bookingService.updateBooking(2, 1, Boolean.TRUE))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1));
+        mockMvc.perform(patch("/bookings/1")
+                .header("X-Sharer-User-Id", 2)
+                .param("approved", String.valueOf(Boolean.TRUE)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void createBookingOk() throws Exception {
         ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
@@ -153,4 +230,31 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is("APPROVED")));
         verify(bookingService, times(1)).createBooking(2, bookingDto);
     }
+
+    @Test
+    void createBookingWithSameIdempotencyKeyOnce() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        User user = new User(2, "user@ya.ru", "Irina");
+        Item item = new Item("book", "book for read", Boolean.TRUE);
+        item.setId(3);
+        Booking booking = new Booking(1,
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 41),
+                item, user, BookingState.WAITING);
+        BookingDto bookingDto = new BookingDto(booking.getStart(), booking.getEnd(), 3);
+
+        when(bookingService.createBooking(2, bookingDto)).thenReturn(booking);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/bookings")
+                    .header("X-Sharer-User-Id", 2)
+                    .header(IdempotencyStore.HEADER, "booking-key")
+                    .content(mapper.writeValueAsString(bookingDto))
+                    .characterEncoding(StandardCharsets.UTF_8)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(1)));
+        }
+        verify(bookingService, times(1)).createBooking(2, bookingDto);
+    }
 }
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BookingExpiryJobTest {
+    private BookingRepository bookingRepository;
+    private BookingTimelineCache bookingTimelineCache;
+    private BookingExpiryJob job;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        bookingTimelineCache = new BookingTimelineCache(bookingRepository, 600000);
+        job = new BookingExpiryJob(bookingRepository, bookingTimelineCache, 2, 0);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void expireInBatches() {
+        when(bookingRepository.findIntervalsByStatusAndStartBefore(BookingState.WAITING, now, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(interval(1, 10), interval(2, 10)))
+                .thenReturn(Collections.singletonList(interval(3, 11)));
+        when(bookingRepository.updateStatus(any(), eq(BookingState.WAITING), eq(BookingState.CANCELED)))
+                .thenReturn(2)
+                .thenReturn(1);
+
+        assertEquals(3, job.expireStartedBefore(now));
+
+        verify(bookingRepository, times(1)).updateStatus(List.of(1, 2), BookingState.WAITING, BookingState.CANCELED);
+        verify(bookingRepository, times(1)).updateStatus(List.of(3), BookingState.WAITING, BookingState.CANCELED);
+        verify(bookingRepository, times(2)).findIntervalsByStatusAndStartBefore(any(), any(), any());
+    }
+
+    @Test
+    void expireNothing() {
+        when(bookingRepository.findIntervalsByStatusAndStartBefore(any(), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(0, job.expireStartedBefore(now));
+        verify(bookingRepository, times(0)).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void expiredBookingReleasesTimeline() {
+        Item item = new Item("book", "book for read", Boolean.TRUE);
+        item.setId(10);
+        Booking booking = new Booking(1, now.minusHours(1), now.plusHours(1), item, null, BookingState.WAITING);
+        bookingTimelineCache.add(booking);
+        assertTrue(bookingTimelineCache.get(10).overlaps(now, now.plusMinutes(1)));
+        when(bookingRepository.findIntervalsByStatusAndStartBefore(any(), any(), any()))
+                .thenReturn(Collections.singletonList(interval(1, 10)));
+
+        job.expireStartedBefore(now);
+
+        assertFalse(bookingTimelineCache.get(10).overlaps(now, now.plusMinutes(1)));
+    }
+
+    @Test
+    void batchSizeValidation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookingExpiryJob(bookingRepository, bookingTimelineCache, 0, 0));
+    }
+
+    private BookingInterval interval(int id, int itemId) {
+        LocalDateTime start = now.minusHours(1);
+        return new BookingInterval() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return start;
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingSearchState;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Каждое чтение бронирований вместе с построением ответа укладывается в один SQL-запрос.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BookingFetchStatementsTest {
+    private static final int BOOKINGS = 30;
+    private static final PageRequest PAGE = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "end", "id"));
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(new User(null, "owner@owner.ru", "owner"));
+        booker = entityManager.persist(new User(null, "booker@booker.ru", "booker"));
+        LocalDateTime start = LocalDateTime.now().minusDays(BOOKINGS + 1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            ItemRequest request = entityManager.persist(new ItemRequest(null, "request" + i, booker, start));
+            Item item = new Item(null, "item" + i, "description" + i, true, owner, request);
+            item = entityManager.persist(item);
+            booking = entityManager.persist(new Booking(null, start.plusDays(i), start.plusDays(i).plusHours(1),
+                    item, booker, BookingState.APPROVED));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listViewIsOneStatement() {
+        List<BookingDtoResponse> dtos = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>itemOwnerIdEquals(owner.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.PAST, LocalDateTime.now())),
+                PAGE);
+
+        assertEquals(BOOKINGS, dtos.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void detailViewIsOneStatement() {
+        BookingDtoResponse dto = BookingMapper.toDto(bookingRepository.findById(booking.getId()).orElseThrow());
+
+        assertEquals(booker.getName(), dto.getBooker().getName());
+        assertEquals(booking.getItem().getRequest().getId(), dto.getItem().getRequestId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void itemCardViewIsOneStatement() {
+        List<Booking> bookings = bookingRepository.findLastBookingsOfItems(List.of(booking.getItem().getId()),
+                LocalDateTime.now(), BookingState.APPROVED);
+
+        assertEquals(1, bookings.size());
+        assertEquals(booker.getId(), BookingMapper.toItemDto(bookings.get(0)).getBookerId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -6,12 +6,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.mock.web.MockHttpServletResponse;
 import ru.practicum.shareit.booking.dto.BookingDtoResponse;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingSearchState;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemWithBookingDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.UserController;
@@ -23,6 +25,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 @SpringBootTest
 public class BookingIntegrationTest {
@@ -48,6 +51,10 @@ public class BookingIntegrationTest {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    BookingArchiver bookingArchiver;
+
+    private Integer user1Id;
     private Integer user2Id;
     private Integer itemId;
     private Integer oldApprovedBookingId;
@@ -69,8 +76,9 @@ public class BookingIntegrationTest {
         itemDto.setName("name");
         itemDto.setDescription("description");
         itemDto.setAvailable(true);
-        ItemDto resultItem = itemController.create(resultUser1.getId(), itemDto);
+        ItemDto resultItem = itemController.create(resultUser1.getId(), null, itemDto);
 
+        user1Id = resultUser1.getId();
         user2Id = resultUser2.getId();
         itemId = resultItem.getId();
 
@@ -82,45 +90,63 @@ public class BookingIntegrationTest {
 
     @Test
     void findAllTypesOfBookings() {
-        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.ALL.name(), 0, 100);
+        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.ALL.name(), 0, 100, null, new MockHttpServletResponse());
         assertEquals(3, allBookingsOfUser.size());
     }
 
     @Test
     void findPastTypesOfBookings() {
-        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.PAST.name(), 0, 100);
+        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.PAST.name(), 0, 100, null, new MockHttpServletResponse());
         assertEquals(1, allBookingsOfUser.size());
         assertEquals(oldApprovedBookingId, allBookingsOfUser.get(0).getId());
     }
 
     @Test
     void findFutureTypesOfBookings() {
-        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.FUTURE.name(), 0, 100);
+        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.FUTURE.name(), 0, 100, null, new MockHttpServletResponse());
         assertEquals(1, allBookingsOfUser.size());
         assertEquals(futureWaitingBookingId, allBookingsOfUser.get(0).getId());
     }
 
     @Test
     void findRejectedTypesOfBookings() {
-        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.REJECTED.name(), 0, 100);
+        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.REJECTED.name(), 0, 100, null, new MockHttpServletResponse());
         assertEquals(1, allBookingsOfUser.size());
         assertEquals(currentRejectedBookingId, allBookingsOfUser.get(0).getId());
     }
 
     @Test
     void findCurrentTypesOfBookings() {
-        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.CURRENT.name(), 0, 100);
+        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.CURRENT.name(), 0, 100, null, new MockHttpServletResponse());
         assertEquals(1, allBookingsOfUser.size());
         assertEquals(currentRejectedBookingId, allBookingsOfUser.get(0).getId());
     }
 
     @Test
     void findWaitingTypesOfBookings() {
-        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.WAITING.name(), 0, 100);
+        List<BookingDtoResponse> allBookingsOfUser = bookingController.findAllBookingsOfUser(user2Id, BookingSearchState.WAITING.name(), 0, 100, null, new MockHttpServletResponse());
         assertEquals(1, allBookingsOfUser.size());
         assertEquals(futureWaitingBookingId, allBookingsOfUser.get(0).getId());
     }
 
+    @Test
+    void archivedBookingIsStillReadable() {
+        assertEquals(1, bookingArchiver.archive(List.of(oldApprovedBookingId)));
+        assertFalse(bookingRepository.existsById(oldApprovedBookingId));
+
+        BookingDtoResponse booking = bookingController.findById(user2Id, oldApprovedBookingId);
+        assertEquals(oldApprovedBookingId, booking.getId());
+        assertEquals(itemId, booking.getItem().getId());
+        assertEquals(user2Id, booking.getBooker().getId());
+        assertEquals(BookingState.APPROVED, booking.getStatus());
+
+        ItemWithBookingDto item = itemController.findById(user1Id, itemId);
+        assertEquals(oldApprovedBookingId, item.getLastBooking().getId());
+        List<ItemWithBookingDto> items = itemController.findAllItemsOfUser(user1Id, 0, 10, null,
+                new MockHttpServletResponse());
+        assertEquals(oldApprovedBookingId, items.get(0).getLastBooking().getId());
+    }
+
     private Integer createBooking(LocalDateTime startTime, BookingState bookingState) {
         Booking booking = new Booking();
         Item item = itemRepository.findById(itemId).get();
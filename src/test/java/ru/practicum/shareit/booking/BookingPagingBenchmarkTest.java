@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.BenchmarkSupport;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingSearchState;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнивает страницу бронирований с подсчётом общего количества (как для Page) и без него на миллионе строк
+ * одного автора: страница читается по индексу, а count проходит по всем строкам, поэтому без него быстрее.
+ * Запускается только с -Dshareit.benchmark=true: заполнение таблицы занимает заметное время.
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+public class BookingPagingBenchmarkTest {
+    private static final int BOOKINGS = 1_000_000;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 21;
+    private static final PageRequest PAGE = PageRequest.of(3, 20, Sort.by(Sort.Direction.DESC, "end", "id"));
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Specification<Booking> where;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(new User(null, "owner@owner.ru", "owner"));
+        User booker = userRepository.save(new User(null, "booker@booker.ru", "booker"));
+        Item item = new Item("name", "description", true);
+        item.setOwner(owner);
+        item = itemRepository.save(item);
+        userRepository.flush();
+
+        BenchmarkSupport.insertBookings(new JdbcTemplate(dataSource), booker.getId(), item.getId(), BOOKINGS);
+
+        where = BookingSpecifications.<Booking>bookerIdEquals(booker.getId())
+                .and(BookingSpecifications.inSearchState(BookingSearchState.PAST, LocalDateTime.now()));
+    }
+
+    @Test
+    void pageWithoutCountIsFaster() {
+        assertEquals(PAGE.getPageSize(), bookingRepository.findDtoPage(where, PAGE).size());
+        assertEquals(BOOKINGS, bookingRepository.count(where));
+        long withCount = BenchmarkSupport.median(WARMUP, ITERATIONS, () -> BenchmarkSupport.nanosOf(() -> {
+            bookingRepository.findDtoPage(where, PAGE);
+            bookingRepository.count(where);
+        }));
+        long withoutCount = BenchmarkSupport.median(WARMUP, ITERATIONS,
+                () -> BenchmarkSupport.nanosOf(() -> bookingRepository.findDtoPage(where, PAGE)));
+
+        log.info("Страница бронирований из {} строк: с count {} мкс, без count {} мкс",
+                BOOKINGS, withCount / 1000, withoutCount / 1000);
+        assertTrue(withoutCount < withCount,
+                "Страница без count не быстрее: " + withoutCount + " >= " + withCount);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.BenchmarkSupport;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнивает объём памяти, выделяемой потоком на чтение страницы бронирований:
+ * загрузка сущностей с вещью и автором через fetch join с последующим BookingMapper
+ * против выборки сразу в BookingDtoResponse. Запускается только с -Dshareit.benchmark=true.
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+public class BookingProjectionAllocationBenchmarkTest {
+    private static final int BOOKINGS = 10_000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 51;
+    private static final PageRequest PAGE = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "end", "id"));
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Specification<Booking> where;
+    private Integer bookerId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(new User(null, "owner@owner.ru", "owner"));
+        User booker = userRepository.save(new User(null, "booker@booker.ru", "booker"));
+        Item item = new Item("name", "description", true);
+        item.setOwner(owner);
+        item = itemRepository.save(item);
+        userRepository.flush();
+
+        BenchmarkSupport.insertBookings(new JdbcTemplate(dataSource), booker.getId(), item.getId(), BOOKINGS);
+        entityManager.clear();
+
+        bookerId = booker.getId();
+        where = BookingSpecifications.bookerIdEquals(bookerId);
+    }
+
+    @Test
+    void projectionAllocatesLess() {
+        assertEquals(findEntityPage().stream().map(Booking::getId).collect(Collectors.toList()),
+                bookingRepository.findDtoPage(where, PAGE).stream().map(BookingDtoResponse::getId)
+                        .collect(Collectors.toList()));
+        entityManager.clear();
+        long entities = medianAllocatedBytes(() -> BookingMapper.toDto(findEntityPage()));
+        long projections = medianAllocatedBytes(() -> bookingRepository.findDtoPage(where, PAGE));
+
+        log.info("Страница из {} бронирований: через сущности {} КБ, через проекцию {} КБ",
+                PAGE.getPageSize(), entities / 1024, projections / 1024);
+        assertTrue(projections < entities,
+                "Проекция выделяет не меньше памяти: " + projections + " >= " + entities);
+    }
+
+    private List<Booking> findEntityPage() {
+        return entityManager.getEntityManager()
+                .createQuery("select b from Booking b join fetch b.item join fetch b.booker " +
+                        "where b.booker.id = :bookerId order by b.end desc, b.id desc", Booking.class)
+                .setParameter("bookerId", bookerId)
+                .setFirstResult((int) PAGE.getOffset())
+                .setMaxResults(PAGE.getPageSize())
+                .getResultList();
+    }
+
+    private long medianAllocatedBytes(Runnable query) {
+        return BenchmarkSupport.median(WARMUP, ITERATIONS, () -> {
+            long allocated = BenchmarkSupport.allocatedBytesOf(() -> {
+                query.run();
+                entityManager.flush();
+            });
+            entityManager.clear();
+            return allocated;
+        });
+    }
+}
@@ -5,10 +5,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.ItemBookingCount;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingSearchState;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
@@ -17,13 +26,19 @@ import java.time.Month;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @DataJpaTest
 public class BookingRepositoryTest {
+    private static final PageRequest PAGE = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "end", "id"));
 
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -55,7 +70,7 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void findAllByBookerIdOrderByEndDescOk() {
+    void findPageOfBookerOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -69,16 +84,25 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
 
-        List<Booking> result = bookingRepository.findAllByBookerIdOrderByEndDesc(savedUser.getId());
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>bookerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.ALL, LocalDateTime.now())),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(2, result.size());
-        Assertions.assertEquals(savedBooking2, result.get(0));
-        Assertions.assertEquals(savedBooking, result.get(1));
+        Assertions.assertEquals(savedBooking2.getId(), result.get(0).getId());
+        Assertions.assertEquals(savedBooking.getId(), result.get(1).getId());
+
+        result = bookingRepository.findDtoPage(BookingSpecifications.<Booking>bookerIdEquals(savedUser.getId()),
+                PageRequest.of(1, 1, PAGE.getSort()));
+
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(savedBooking.getId(), result.get(0).getId());
     }
 
     @Test
-    void findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByEndDescOk() {
+    void findPageOfBookerInCurrentStateOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -92,19 +116,19 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
 
-        List<Booking> result = bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(
-                savedUser.getId(),
-                LocalDateTime.of(2024, Month.MAY, 25, 12, 43),
-                LocalDateTime.of(2024, Month.MAY, 25, 12, 43));
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>bookerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.CURRENT, LocalDateTime.of(2024, Month.MAY, 25, 12, 43))),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(1, result.size());
-        Assertions.assertEquals(savedBooking, result.get(0));
+        Assertions.assertEquals(savedBooking.getId(), result.get(0).getId());
 
     }
 
     @Test
-    void findAllByBookerIdAndEndIsBeforeOrderByEndDescOk() {
+    void findPageOfBookerInPastStateOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -118,18 +142,19 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
 
-        List<Booking> result = bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByEndDesc(
-                savedUser.getId(),
-                LocalDateTime.of(2024, Month.MAY, 27, 12, 43));
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>bookerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.PAST, LocalDateTime.of(2024, Month.MAY, 27, 12, 43))),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(1, result.size());
-        Assertions.assertEquals(savedBooking, result.get(0));
+        Assertions.assertEquals(savedBooking.getId(), result.get(0).getId());
 
     }
 
     @Test
-    void findAllByBookerIdAndStartIsAfterOrderByEndDescOk() {
+    void findPageOfBookerInFutureStateOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -143,18 +168,19 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
 
-        List<Booking> result = bookingRepository.findAllByBookerIdAndStartIsAfterOrderByEndDesc(
-                savedUser.getId(),
-                LocalDateTime.of(2024, Month.MAY, 27, 12, 43));
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>bookerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.FUTURE, LocalDateTime.of(2024, Month.MAY, 27, 12, 43))),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(1, result.size());
-        Assertions.assertEquals(savedBooking2, result.get(0));
+        Assertions.assertEquals(savedBooking2.getId(), result.get(0).getId());
 
     }
 
     @Test
-    void findAllByBookerIdAndStatusOrderByEndDescOk() {
+    void findPageOfBookerInWaitingStateOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -168,18 +194,19 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
 
-        List<Booking> result = bookingRepository.findAllByBookerIdAndStatusOrderByEndDesc(
-                savedUser.getId(),
-                BookingState.APPROVED);
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>bookerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.WAITING, LocalDateTime.now())),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(1, result.size());
-        Assertions.assertEquals(savedBooking2, result.get(0));
+        Assertions.assertEquals(savedBooking.getId(), result.get(0).getId());
 
     }
 
     @Test
-    void findAllByItemIdInOrderByEndDescOk() {
+    void findPageOfOwnerItemsOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -192,20 +219,30 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 40),
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
-        Set<Integer> itemIds = new HashSet<>();
-        itemIds.add(savedItem.getId());
 
-        List<Booking> result = bookingRepository.findAllByItemIdInOrderByEndDesc(itemIds);
+        User otherOwner = userRepository.save(new User(3, "owner@ya.ru", "Olga"));
+        Item otherItem = new Item("pen", "pen for write", Boolean.TRUE);
+        otherItem.setOwner(otherOwner);
+        saveBooking(savedUser,
+                itemRepository.save(otherItem),
+                LocalDateTime.of(2024, Month.MAY, 26, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 26, 12, 45),
+                BookingState.WAITING);
+
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>itemOwnerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.ALL, LocalDateTime.now())),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(2, result.size());
-        Assertions.assertEquals(savedBooking2, result.get(0));
-        Assertions.assertEquals(savedBooking, result.get(1));
+        Assertions.assertEquals(savedBooking2.getId(), result.get(0).getId());
+        Assertions.assertEquals(savedBooking.getId(), result.get(1).getId());
 
     }
 
     @Test
-    void findAllByItemIdInAndStartIsBeforeAndEndIsAfterOrderByEndDescOk() {
+    void findPageOfOwnerItemsInCurrentStateOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -218,22 +255,20 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 40),
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
-        Set<Integer> itemIds = new HashSet<>();
-        itemIds.add(savedItem.getId());
 
-        List<Booking> result = bookingRepository.findAllByItemIdInAndStartIsBeforeAndEndIsAfterOrderByEndDesc(
-                itemIds,
-                LocalDateTime.of(2024, Month.MAY, 25, 12, 43),
-                LocalDateTime.of(2024, Month.MAY, 25, 12, 43));
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>itemOwnerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.CURRENT, LocalDateTime.of(2024, Month.MAY, 25, 12, 43))),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(1, result.size());
-        Assertions.assertEquals(savedBooking, result.get(0));
+        Assertions.assertEquals(savedBooking.getId(), result.get(0).getId());
 
     }
 
     @Test
-    void findAllByItemIdInAndEndIsBeforeOrderByEndDescOk() {
+    void findPageOfOwnerItemsInPastStateOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -246,21 +281,20 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 40),
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
-        Set<Integer> itemIds = new HashSet<>();
-        itemIds.add(savedItem.getId());
 
-        List<Booking> result = bookingRepository.findAllByItemIdInAndEndIsBeforeOrderByEndDesc(
-                itemIds,
-                LocalDateTime.of(2024, Month.MAY, 27, 12, 43));
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>itemOwnerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.PAST, LocalDateTime.of(2024, Month.MAY, 27, 12, 43))),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(1, result.size());
-        Assertions.assertEquals(savedBooking, result.get(0));
+        Assertions.assertEquals(savedBooking.getId(), result.get(0).getId());
 
     }
 
     @Test
-    void findAllByItemIdInAndStartIsAfterOrderByEndDescOk() {
+    void findPageOfOwnerItemsInFutureStateOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -273,21 +307,20 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 40),
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
-        Set<Integer> itemIds = new HashSet<>();
-        itemIds.add(savedItem.getId());
 
-        List<Booking> result = bookingRepository.findAllByItemIdInAndStartIsAfterOrderByEndDesc(
-                itemIds,
-                LocalDateTime.of(2024, Month.MAY, 27, 12, 43));
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>itemOwnerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.FUTURE, LocalDateTime.of(2024, Month.MAY, 27, 12, 43))),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(1, result.size());
-        Assertions.assertEquals(savedBooking2, result.get(0));
+        Assertions.assertEquals(savedBooking2.getId(), result.get(0).getId());
 
     }
 
     @Test
-    void findAllByItemIdInAndStatusOrderByEndDescOk() {
+    void findPageOfOwnerItemsInWaitingStateOk() {
 
         Booking savedBooking = saveBooking(savedUser,
                 savedItem,
@@ -300,16 +333,15 @@ public class BookingRepositoryTest {
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 40),
                 LocalDateTime.of(2025, Month.MAY, 25, 12, 41),
                 BookingState.APPROVED);
-        Set<Integer> itemIds = new HashSet<>();
-        itemIds.add(savedItem.getId());
 
-        List<Booking> result = bookingRepository.findAllByItemIdInAndStatusOrderByEndDesc(
-                itemIds,
-                BookingState.WAITING);
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(
+                BookingSpecifications.<Booking>itemOwnerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.WAITING, LocalDateTime.now())),
+                PAGE);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(1, result.size());
-        Assertions.assertEquals(savedBooking, result.get(0));
+        Assertions.assertEquals(savedBooking.getId(), result.get(0).getId());
 
     }
 
@@ -363,6 +395,274 @@ public class BookingRepositoryTest {
 
     }
 
+    @Test
+    void findLastBookingsOfItemsOk() {
+        Item item2 = new Item("pen", "pen for write", Boolean.TRUE);
+        item2.setOwner(savedUser);
+        Item savedItem2 = itemRepository.save(item2);
+
+        saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 45),
+                BookingState.APPROVED);
+
+        Booking savedBooking2 = saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2024, Month.MAY, 26, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 26, 12, 45),
+                BookingState.APPROVED);
+
+        saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2024, Month.MAY, 27, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 27, 12, 45),
+                BookingState.REJECTED);
+
+        Booking savedBooking4 = saveBooking(savedUser,
+                savedItem2,
+                LocalDateTime.of(2024, Month.MAY, 20, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 20, 12, 45),
+                BookingState.APPROVED);
+
+        Set<Integer> itemIds = new HashSet<>();
+        itemIds.add(savedItem.getId());
+        itemIds.add(savedItem2.getId());
+
+        List<Booking> result = bookingRepository.findLastBookingsOfItems(
+                itemIds,
+                LocalDateTime.of(2024, Month.MAY, 28, 12, 0),
+                BookingState.APPROVED);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertTrue(result.contains(savedBooking2));
+        Assertions.assertTrue(result.contains(savedBooking4));
+    }
+
+    @Test
+    void findNextBookingsOfItemsOk() {
+        Item item2 = new Item("pen", "pen for write", Boolean.TRUE);
+        item2.setOwner(savedUser);
+        Item savedItem2 = itemRepository.save(item2);
+
+        saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 45),
+                BookingState.APPROVED);
+
+        Booking savedBooking2 = saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2025, Month.MAY, 26, 12, 40),
+                LocalDateTime.of(2025, Month.MAY, 26, 12, 45),
+                BookingState.APPROVED);
+
+        saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2025, Month.MAY, 27, 12, 40),
+                LocalDateTime.of(2025, Month.MAY, 27, 12, 45),
+                BookingState.APPROVED);
+
+        saveBooking(savedUser,
+                savedItem2,
+                LocalDateTime.of(2025, Month.MAY, 20, 12, 40),
+                LocalDateTime.of(2025, Month.MAY, 20, 12, 45),
+                BookingState.WAITING);
+
+        Set<Integer> itemIds = new HashSet<>();
+        itemIds.add(savedItem.getId());
+        itemIds.add(savedItem2.getId());
+
+        List<Booking> result = bookingRepository.findNextBookingsOfItems(
+                itemIds,
+                LocalDateTime.of(2024, Month.MAY, 28, 12, 0),
+                BookingState.APPROVED);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(savedBooking2.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void countBookingsOfItemsEndedBeforeOk() {
+        Item item2 = new Item("pen", "pen for write", Boolean.TRUE);
+        item2.setOwner(savedUser);
+        Item savedItem2 = itemRepository.save(item2);
+
+        saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 25, 12, 45),
+                BookingState.APPROVED);
+
+        saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2024, Month.MAY, 26, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 26, 12, 45),
+                BookingState.APPROVED);
+
+        saveBooking(savedUser,
+                savedItem,
+                LocalDateTime.of(2024, Month.MAY, 27, 12, 40),
+                LocalDateTime.of(2024, Month.MAY, 27, 12, 45),
+                BookingState.REJECTED);
+
+        saveBooking(savedUser,
+                savedItem2,
+                LocalDateTime.of(2025, Month.MAY, 20, 12, 40),
+                LocalDateTime.of(2025, Month.MAY, 20, 12, 45),
+                BookingState.APPROVED);
+
+        Set<Integer> itemIds = new HashSet<>();
+        itemIds.add(savedItem.getId());
+        itemIds.add(savedItem2.getId());
+
+        List<ItemBookingCount> result = bookingRepository.countBookingsOfItemsEndedBefore(
+                itemIds,
+                LocalDateTime.of(2024, Month.MAY, 28, 12, 0),
+                BookingState.APPROVED);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(savedItem.getId(), result.get(0).getItemId());
+        Assertions.assertEquals(2L, result.get(0).getBookingCount());
+    }
+
+    @Test
+    void findAllAfterCursorOk() {
+        LocalDateTime end = LocalDateTime.of(2024, Month.MAY, 25, 12, 45);
+        Booking first = saveBooking(savedUser, savedItem, end.minusMinutes(5), end, BookingState.APPROVED);
+        Booking second = saveBooking(savedUser, savedItem, end.minusMinutes(10), end, BookingState.APPROVED);
+        Booking third = saveBooking(savedUser, savedItem, end.minusMinutes(20), end.minusMinutes(10), BookingState.APPROVED);
+        saveBooking(savedUser, savedItem, end.plusDays(1), end.plusDays(2), BookingState.APPROVED);
+        Sort sort = Sort.by(Sort.Direction.DESC, "end", "id");
+
+        Specification<Booking> where = BookingSpecifications.<Booking>bookerIdEquals(savedUser.getId())
+                .and(BookingSpecifications.inSearchState(BookingSearchState.PAST, end.plusHours(1)))
+                .and(BookingSpecifications.after(PageCursor.of(end, second.getId())));
+        List<BookingDtoResponse> result = bookingRepository.findDtoPage(where, PageRequest.of(0, 10, sort));
+
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertTrue(first.getId() < second.getId());
+        Assertions.assertEquals(first.getId(), result.get(0).getId());
+        Assertions.assertEquals(third.getId(), result.get(1).getId());
+
+        where = BookingSpecifications.<Booking>itemOwnerIdEquals(savedUser.getId())
+                .and(BookingSpecifications.inSearchState(BookingSearchState.ALL, end))
+                .and(BookingSpecifications.after(PageCursor.of(end, first.getId())));
+        result = bookingRepository.findDtoPage(where, PageRequest.of(0, 1, sort));
+
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(third.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void streamDtosOk() {
+        LocalDateTime end = LocalDateTime.of(2024, Month.MAY, 25, 12, 45);
+        Booking first = saveBooking(savedUser, savedItem, end.minusMinutes(5), end, BookingState.APPROVED);
+        Booking second = saveBooking(savedUser, savedItem, end.minusMinutes(20), end.minusMinutes(10), BookingState.WAITING);
+        saveBooking(savedUser, savedItem, end.minusMinutes(40), end.minusMinutes(30), BookingState.REJECTED);
+
+        Specification<Booking> where = BookingSpecifications.<Booking>bookerIdEquals(savedUser.getId())
+                .and(BookingSpecifications.inSearchState(BookingSearchState.PAST, end.plusHours(1)))
+                .and((root, query, builder) -> builder.notEqual(root.get("status"), BookingState.REJECTED));
+        List<BookingDtoResponse> result;
+        try (Stream<BookingDtoResponse> bookings = bookingRepository.streamDtos(where, Sort.by(Sort.Direction.DESC, "end", "id"))) {
+            result = bookings.collect(Collectors.toList());
+        }
+
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals(first.getId(), result.get(0).getId());
+        Assertions.assertEquals(second.getId(), result.get(1).getId());
+        Assertions.assertEquals(savedItem.getName(), result.get(0).getItem().getName());
+        Assertions.assertEquals(savedUser.getEmail(), result.get(0).getBooker().getEmail());
+    }
+
+    @Test
+    void expireWaitingBookingsOk() {
+        LocalDateTime now = LocalDateTime.of(2024, Month.MAY, 25, 12, 0);
+        Booking overdue = saveBooking(savedUser, savedItem, now.minusHours(3), now.minusHours(2), BookingState.WAITING);
+        Booking overdue2 = saveBooking(savedUser, savedItem, now.minusHours(1), now.plusHours(1), BookingState.WAITING);
+        saveBooking(savedUser, savedItem, now.minusHours(5), now.minusHours(4), BookingState.APPROVED);
+        saveBooking(savedUser, savedItem, now.plusHours(1), now.plusHours(2), BookingState.WAITING);
+
+        List<BookingInterval> intervals = bookingRepository.findIntervalsByStatusAndStartBefore(BookingState.WAITING,
+                now, PageRequest.of(0, 1));
+
+        Assertions.assertEquals(1, intervals.size());
+        Assertions.assertEquals(overdue.getId(), intervals.get(0).getId());
+        Assertions.assertEquals(savedItem.getId(), intervals.get(0).getItemId());
+        Assertions.assertEquals(overdue.getStart(), intervals.get(0).getStart());
+
+        int updated = bookingRepository.updateStatus(List.of(overdue.getId(), overdue2.getId()),
+                BookingState.WAITING, BookingState.CANCELED);
+
+        Assertions.assertEquals(2, updated);
+        Assertions.assertTrue(bookingRepository.findIntervalsByStatusAndStartBefore(BookingState.WAITING,
+                now, PageRequest.of(0, 10)).isEmpty());
+        Assertions.assertEquals(1, bookingRepository.findDtoPage(
+                BookingSpecifications.inSearchState(BookingSearchState.WAITING, now), PAGE).size());
+    }
+
+    @Test
+    void moveBookingsToArchiveOk() {
+        LocalDateTime now = LocalDateTime.of(2024, Month.MAY, 25, 12, 0);
+        Booking old = saveBooking(savedUser, savedItem, now.minusMonths(14), now.minusMonths(13), BookingState.APPROVED);
+        Booking old2 = saveBooking(savedUser, savedItem, now.minusMonths(15), now.minusMonths(14), BookingState.REJECTED);
+        Booking recent = saveBooking(savedUser, savedItem, now.minusDays(2), now.minusDays(1), BookingState.APPROVED);
+        bookingRepository.flush();
+
+        List<Integer> ids = bookingRepository.findIdsByEndBefore(now.minusMonths(12), PageRequest.of(0, 10));
+        Assertions.assertEquals(List.of(old2.getId(), old.getId()), ids);
+
+        Assertions.assertEquals(2, archivedBookingRepository.copyFromBookings(ids));
+        Assertions.assertEquals(2, bookingRepository.deleteAllByIds(ids));
+
+        List<BookingDtoResponse> hot = bookingRepository.findDtoPage(BookingSpecifications.bookerIdEquals(savedUser.getId()), PAGE);
+        Assertions.assertEquals(1, hot.size());
+        Assertions.assertEquals(recent.getId(), hot.get(0).getId());
+
+        List<BookingDtoResponse> archived = archivedBookingRepository.findDtoRange(
+                BookingSpecifications.<ArchivedBooking>bookerIdEquals(savedUser.getId())
+                        .and(BookingSpecifications.inSearchState(BookingSearchState.PAST, now)),
+                PAGE.getSort(), 1, 10);
+        Assertions.assertEquals(1, archived.size());
+        Assertions.assertEquals(old2.getId(), archived.get(0).getId());
+        Assertions.assertEquals(BookingState.REJECTED, archived.get(0).getStatus());
+        Assertions.assertEquals(savedItem.getName(), archived.get(0).getItem().getName());
+
+        Assertions.assertTrue(archivedBookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(savedUser.getId(),
+                savedItem.getId(), now));
+        List<ItemBookingCount> counts = archivedBookingRepository.countBookingsOfItemsEndedBefore(
+                List.of(savedItem.getId()), now, BookingState.APPROVED);
+        Assertions.assertEquals(1, counts.size());
+        Assertions.assertEquals(1L, counts.get(0).getBookingCount());
+    }
+
+    @Test
+    void archiveBatchesFollowEndDate() {
+        LocalDateTime now = LocalDateTime.of(2024, Month.MAY, 25, 12, 0);
+        Booking endsThird = saveBooking(savedUser, savedItem, now.minusMonths(20), now.minusMonths(14), BookingState.APPROVED);
+        Booking endsFirst = saveBooking(savedUser, savedItem, now.minusMonths(20), now.minusMonths(18), BookingState.APPROVED);
+        Booking endsFourth = saveBooking(savedUser, savedItem, now.minusMonths(20), now.minusMonths(13), BookingState.APPROVED);
+        Booking endsSecond = saveBooking(savedUser, savedItem, now.minusMonths(20), now.minusMonths(16), BookingState.APPROVED);
+        bookingRepository.flush();
+        BookingArchiver archiver = new BookingArchiver(bookingRepository, archivedBookingRepository);
+
+        List<Integer> batch = bookingRepository.findIdsByEndBefore(now.minusMonths(12), PageRequest.of(0, 2));
+        Assertions.assertEquals(List.of(endsFirst.getId(), endsSecond.getId()), batch);
+        archiver.archive(batch);
+
+        LocalDateTime latestArchived = archivedBookingRepository.findAll().stream()
+                .map(ArchivedBooking::getEnd).max(LocalDateTime::compareTo).orElseThrow();
+        LocalDateTime earliestHot = bookingRepository.findAll().stream()
+                .map(Booking::getEnd).min(LocalDateTime::compareTo).orElseThrow();
+        Assertions.assertTrue(latestArchived.isBefore(earliestHot));
+        Assertions.assertEquals(List.of(endsThird.getId(), endsFourth.getId()),
+                bookingRepository.findIdsByEndBefore(now.minusMonths(12), PageRequest.of(0, 2)));
+    }
+
     @Test
     void findFirst1ByBookerIdAndItemIdAndEndIsBeforeOk() {
 
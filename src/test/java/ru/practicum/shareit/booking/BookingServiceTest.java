@@ -3,15 +3,27 @@ package ru.practicum.shareit.booking;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.data.domain.PageImpl;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.exception.ConflictValidationException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.exception.IncorrectStateException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 
@@ -19,15 +31,20 @@ import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 public class BookingServiceTest {
+    private static final Sort SORT_BY_END_DESC = Sort.by(Sort.Direction.DESC, "end", "id");
 
     private BookingService bookingService;
     private BookingRepository bookingRepository;
+    private ArchivedBookingRepository archivedBookingRepository;
     private UserService userService;
     private ItemService itemService;
     private User user;
@@ -36,9 +53,11 @@ public class BookingServiceTest {
     @BeforeEach
     void setUp() {
         bookingRepository = mock(BookingRepository.class);
+        archivedBookingRepository = mock(ArchivedBookingRepository.class);
         userService = mock(UserService.class);
         itemService = mock(ItemService.class);
-        bookingService = new BookingService(itemService, userService, bookingRepository);
+        bookingService = new BookingService(itemService, userService, bookingRepository, archivedBookingRepository,
+                new BookingTimelineCache(bookingRepository, 600000), new TransactionTemplate(mock(PlatformTransactionManager.class)));
 
         user = new User(2, "user@ya.ru", "Irina");
         User user2 = new User(3, "user2@ya.ru", "Irina2");
@@ -48,6 +67,7 @@ public class BookingServiceTest {
         when(userService.findUserById(2)).thenReturn(user);
         when(userService.findUserById(3)).thenReturn(user2);
         when(itemService.findById(any())).thenReturn(item);
+        when(bookingRepository.findItemIdById(1)).thenReturn(java.util.Optional.of(item.getId()));
     }
 
     @Test
@@ -58,18 +78,20 @@ public class BookingServiceTest {
 
     @Test
     void createBookingOk() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
         Booking booking = new Booking();
+        booking.setId(1);
         booking.setBooker(user);
         booking.setItem(item);
         booking.setStatus(BookingState.WAITING);
-        booking.setStart(LocalDateTime.of(2025, Month.MAY, 25, 12, 40));
-        booking.setEnd(LocalDateTime.of(2025, Month.MAY, 25, 12, 45));
+        booking.setStart(start);
+        booking.setEnd(start.plusMinutes(5));
 
         when(bookingRepository.save(any())).thenReturn(booking);
         BookingDto bookingDto = new BookingDto();
         bookingDto.setItemId(4);
-        bookingDto.setStart(LocalDateTime.of(2025, Month.MAY, 25, 12, 40));
-        bookingDto.setEnd(LocalDateTime.of(2025, Month.MAY, 25, 12, 45));
+        bookingDto.setStart(start);
+        bookingDto.setEnd(start.plusMinutes(5));
 
         Booking result = bookingService.createBooking(2, bookingDto);
 
@@ -78,6 +100,58 @@ public class BookingServiceTest {
         verify(bookingRepository, times(1)).save(any());
     }
 
+    @Test
+    void createBookingFailsOnOverlap() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking booking = new Booking();
+        booking.setId(1);
+        booking.setBooker(user);
+        booking.setItem(item);
+        booking.setStatus(BookingState.WAITING);
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(2));
+        when(bookingRepository.save(any())).thenReturn(booking);
+        bookingService.createBooking(2, new BookingDto(start, start.plusHours(2), 4));
+
+        ConflictValidationException ex = assertThrows(ConflictValidationException.class,
+                () -> bookingService.createBooking(2, new BookingDto(start.plusHours(1), start.plusHours(3), 4)));
+        assertEquals("Вещь уже забронирована на эти даты", ex.getMessage());
+
+        bookingService.createBooking(2, new BookingDto(start.plusHours(2), start.plusHours(3), 4));
+        verify(bookingRepository, times(2)).save(any());
+        verify(bookingRepository, times(1)).findAllByItemIdAndStatusInAndEndIsAfter(eq(4), any(), any());
+    }
+
+    @Test
+    void createBookingFailsOnOverlapInDatabase() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        when(bookingRepository.existsByItemIdAndStatusInAndStartIsBeforeAndEndIsAfter(eq(4), any(), any(), any()))
+                .thenReturn(true);
+
+        assertThrows(ConflictValidationException.class,
+                () -> bookingService.createBooking(2, new BookingDto(start, start.plusHours(2), 4)));
+        verify(bookingRepository, times(0)).save(any());
+    }
+
+    @Test
+    void rejectedBookingReleasesTimeline() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking booking = new Booking();
+        booking.setId(1);
+        booking.setBooker(user);
+        booking.setItem(item);
+        booking.setStatus(BookingState.WAITING);
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(2));
+        when(bookingRepository.save(any())).thenReturn(booking);
+        when(bookingRepository.findById(1)).thenReturn(java.util.Optional.of(booking));
+        bookingService.createBooking(2, new BookingDto(start, start.plusHours(2), 4));
+
+        bookingService.updateBooking(3, 1, false);
+
+        Assertions.assertNotNull(bookingService.createBooking(2, new BookingDto(start, start.plusHours(2), 4)));
+    }
+
     @Test
     void createBookingWithPastStartDateError() {
         LocalDateTime now = LocalDateTime.now();
@@ -165,6 +239,28 @@ public class BookingServiceTest {
         verify(bookingRepository, times(1)).findById(any());
     }
 
+    @Test
+    void findBookingByIdFromArchive() {
+        ArchivedBooking archivedBooking = new ArchivedBooking();
+        archivedBooking.setId(1);
+        archivedBooking.setStart(LocalDateTime.of(2022, Month.MAY, 25, 12, 40));
+        archivedBooking.setEnd(LocalDateTime.of(2022, Month.MAY, 25, 12, 45));
+        archivedBooking.setItem(item);
+        archivedBooking.setBooker(user);
+        archivedBooking.setStatus(BookingState.APPROVED);
+        when(bookingRepository.findById(1)).thenReturn(java.util.Optional.empty());
+        when(archivedBookingRepository.findById(1)).thenReturn(java.util.Optional.of(archivedBooking));
+
+        Booking result = bookingService.findBookingById(user.getId(), 1);
+
+        assertEquals(1, result.getId());
+        assertEquals(archivedBooking.getEnd(), result.getEnd());
+        assertEquals(item, result.getItem());
+        assertEquals(user, result.getBooker());
+        assertEquals(BookingState.APPROVED, result.getStatus());
+        assertThrows(EntityNotFoundException.class, () -> bookingService.findBookingById(user.getId(), 404));
+    }
+
     @Test
     void findBookingByIdFailedWithoutAccess() {
         Booking booking = new Booking();
@@ -184,200 +280,294 @@ public class BookingServiceTest {
 
     @Test
     void findAllBookingsOfUserOk() {
-        List<Booking> bookings = prepareBookingTest();
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
 
-        when(bookingRepository.findAllByBookerId(any(), any())).thenReturn(new PageImpl<>(bookings));
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
 
-        List<Booking> result = bookingService.findAllBookingsOfUser(2, "ALL", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfUser(2, "ALL", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByBookerId(any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findCurrentBookingsOfUserOk() {
-        List<Booking> bookings = prepareBookingTest();
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
 
-        when(bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfter(any(), any(), any(), any())).thenReturn(new PageImpl<>(bookings));
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
 
-        List<Booking> result = bookingService.findAllBookingsOfUser(2, "CURRENT", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfUser(2, "CURRENT", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByBookerIdAndStartIsBeforeAndEndIsAfter(any(), any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findPastBookingsOfUserOk() {
-        List<Booking> bookings = prepareBookingTest();
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
 
-        when(bookingRepository.findAllByBookerIdAndEndIsBefore(any(), any(), any())).thenReturn(new PageImpl<>(bookings));
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
 
-        List<Booking> result = bookingService.findAllBookingsOfUser(2, "PAST", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfUser(2, "PAST", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByBookerIdAndEndIsBefore(any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findFutureBookingsOfUserOk() {
-        List<Booking> bookings = prepareBookingTest();
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
 
-        when(bookingRepository.findAllByBookerIdAndStartIsAfter(any(), any(), any())).thenReturn(new PageImpl<>(bookings));
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
 
-        List<Booking> result = bookingService.findAllBookingsOfUser(2, "FUTURE", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfUser(2, "FUTURE", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByBookerIdAndStartIsAfter(any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findWaitingBookingsOfUserOk() {
-        List<Booking> bookings = prepareBookingTest();
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
 
-        when(bookingRepository.findAllByBookerIdAndStatus(any(), any(), any())).thenReturn(new PageImpl<>(bookings));
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
 
-        List<Booking> result = bookingService.findAllBookingsOfUser(2, "WAITING", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfUser(2, "WAITING", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByBookerIdAndStatus(any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findRejectedBookingsOfUserOk() {
-        List<Booking> bookings = prepareBookingTest();
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
 
-        when(bookingRepository.findAllByBookerIdAndStatus(any(), any(), any())).thenReturn(new PageImpl<>(bookings));
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
 
-        List<Booking> result = bookingService.findAllBookingsOfUser(2, "REJECTED", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfUser(2, "REJECTED", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByBookerIdAndStatus(any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findAllBookingsOfUserFailedWithUnknownState() {
-        List<Booking> bookings = prepareBookingTest();
-
-        when(bookingRepository.findAllByBookerIdOrderByEndDesc(any())).thenReturn(bookings);
-
         IncorrectStateException ex = assertThrows(IncorrectStateException.class, () -> bookingService.findAllBookingsOfUser(2, "BEE", null, null));
 
         assertEquals("Unknown state: BEE", ex.getMessage());
     }
 
     @Test
-    void findAllBookingsOfOwnerItemsOk() {
-        List<Booking> bookings = prepareBookingTest();
-        List<Item> items = new ArrayList<>();
-        items.add(item);
+    void findAllBookingsOfUserAfterCursorOk() {
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        String after = PageCursor.of(LocalDateTime.of(2025, Month.MAY, 26, 12, 45), 5).encode();
+
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfUser(2, "PAST", 0, 10, after);
+
+        Assertions.assertEquals(bookings, result);
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 10, SORT_BY_END_DESC)));
+    }
+
+    @Test
+    void findAllBookingsOfUserAfterCursorFails() {
+        assertThrows(ValidationException.class,
+                () -> bookingService.findAllBookingsOfUser(2, "ALL", 0, 10, "не курсор"));
+        assertThrows(ValidationException.class,
+                () -> bookingService.findAllBookingsOfUser(2, "ALL", 0, 10, PageCursor.of(5).encode()));
+        assertThrows(ValidationException.class,
+                () -> bookingService.findAllBookingsOfUser(2, "ALL", 0, 0, PageCursor.of(LocalDateTime.now(), 5).encode()));
+    }
+
+    @Test
+    void findAllBookingsOfOwnerItemsAfterCursorOk() {
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(itemService.hasItemsOfUser(any())).thenReturn(true);
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        String after = PageCursor.of(LocalDateTime.of(2025, Month.MAY, 26, 12, 45), 5).encode();
+
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfOwnerItems(3, "ALL", 0, 10, after);
 
-        when(bookingRepository.findAllByItemIdIn(any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(itemService.findAllItemsOfUser(any())).thenReturn(items);
+        Assertions.assertEquals(bookings, result);
+    }
+
+    @Test
+    void streamAllBookingsOfUserOk() {
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.streamDtos(any(), any())).thenReturn(bookings.stream());
+        List<BookingDtoResponse> result = new ArrayList<>();
+
+        bookingService.streamAllBookingsOfUser(2, "ALL", result::add);
+
+        Assertions.assertEquals(bookings, result);
+        verify(bookingRepository, times(1)).streamDtos(any(), eq(SORT_BY_END_DESC));
+        assertThrows(IncorrectStateException.class, () -> bookingService.streamAllBookingsOfUser(2, "BEE", result::add));
+    }
+
+    @Test
+    void findPastBookingsOfUserContinuesInArchive() {
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        BookingDtoResponse archivedBooking = prepareArchivedBookingDto();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        when(archivedBookingRepository.findDtoRange(any(), any(), anyLong(), anyInt()))
+                .thenReturn(List.of(archivedBooking));
+
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfUser(2, "PAST", 0, 10);
+
+        assertEquals(2, result.size());
+        assertEquals(bookings.get(0), result.get(0));
+        assertEquals(archivedBooking.getId(), result.get(1).getId());
+        assertEquals(archivedBooking.getEnd(), result.get(1).getEnd());
+        verify(archivedBookingRepository, times(1)).findDtoRange(any(), eq(SORT_BY_END_DESC), eq(0L), eq(9));
+        verify(bookingRepository, times(0)).count(ArgumentMatchers.<Specification<Booking>>any());
+    }
+
+    @Test
+    void findBookingsPageBeyondHotDataUsesArchiveOffset() {
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(new ArrayList<>());
+        when(bookingRepository.count(ArgumentMatchers.<Specification<Booking>>any())).thenReturn(13L);
+
+        bookingService.findAllBookingsOfUser(2, "ALL", 20, 10);
+
+        verify(archivedBookingRepository, times(1)).findDtoRange(any(), eq(SORT_BY_END_DESC), eq(7L), eq(10));
+    }
+
+    @Test
+    void findBookingsSkipsArchiveForFullPageAndActualStates() {
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+
+        bookingService.findAllBookingsOfUser(2, "ALL", 0, 1);
+        bookingService.findAllBookingsOfUser(2, "CURRENT", 0, 10);
+        bookingService.findAllBookingsOfUser(2, "FUTURE", 0, 10);
+
+        verify(archivedBookingRepository, times(0)).findDtoRange(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void streamAllBookingsOfUserContinuesInArchive() {
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        BookingDtoResponse archivedBooking = prepareArchivedBookingDto();
+        when(bookingRepository.streamDtos(any(), any())).thenReturn(bookings.stream());
+        when(archivedBookingRepository.streamDtos(any(), any())).thenReturn(Stream.of(archivedBooking));
+        List<BookingDtoResponse> result = new ArrayList<>();
+
+        bookingService.streamAllBookingsOfUser(2, "ALL", result::add);
+
+        assertEquals(2, result.size());
+        assertEquals(archivedBooking.getId(), result.get(1).getId());
+    }
+
+    @Test
+    void streamAllBookingsOfOwnerItemsFailWithoutUserItems() {
+        when(itemService.hasItemsOfUser(any())).thenReturn(false);
+
+        assertThrows(ValidationException.class, () -> bookingService.streamAllBookingsOfOwnerItems(10, "ALL", booking -> {
+        }));
+        verify(bookingRepository, times(0)).streamDtos(any(), any());
+    }
+
+    @Test
+    void findAllBookingsOfOwnerItemsOk() {
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        when(itemService.hasItemsOfUser(any())).thenReturn(true);
 
-        List<Booking> result = bookingService.findAllBookingsOfOwnerItems(3, "ALL", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfOwnerItems(3, "ALL", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByItemIdIn(any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findCurrentBookingsOfOwnerItemsOk() {
-        List<Booking> bookings = prepareBookingTest();
-        List<Item> items = new ArrayList<>();
-        items.add(item);
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        when(itemService.hasItemsOfUser(any())).thenReturn(true);
 
-        when(bookingRepository.findAllByItemIdInAndStartIsBeforeAndEndIsAfter(any(), any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(itemService.findAllItemsOfUser(any())).thenReturn(items);
-
-        List<Booking> result = bookingService.findAllBookingsOfOwnerItems(3, "CURRENT", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfOwnerItems(3, "CURRENT", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByItemIdInAndStartIsBeforeAndEndIsAfter(any(), any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findFutureBookingsOfOwnerItemsOk() {
-        List<Booking> bookings = prepareBookingTest();
-        List<Item> items = new ArrayList<>();
-        items.add(item);
-
-        when(bookingRepository.findAllByItemIdInAndStartIsAfter(any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(itemService.findAllItemsOfUser(any())).thenReturn(items);
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        when(itemService.hasItemsOfUser(any())).thenReturn(true);
 
-        List<Booking> result = bookingService.findAllBookingsOfOwnerItems(3, "FUTURE", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfOwnerItems(3, "FUTURE", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByItemIdInAndStartIsAfter(any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findWaitingBookingsOfOwnerItemsOk() {
-        List<Booking> bookings = prepareBookingTest();
-        List<Item> items = new ArrayList<>();
-        items.add(item);
-
-        when(bookingRepository.findAllByItemIdInAndStatus(any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(itemService.findAllItemsOfUser(any())).thenReturn(items);
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        when(itemService.hasItemsOfUser(any())).thenReturn(true);
 
-        List<Booking> result = bookingService.findAllBookingsOfOwnerItems(3, "WAITING", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfOwnerItems(3, "WAITING", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByItemIdInAndStatus(any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findRejectedBookingsOfOwnerItemsOk() {
-        List<Booking> bookings = prepareBookingTest();
-        List<Item> items = new ArrayList<>();
-        items.add(item);
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        when(itemService.hasItemsOfUser(any())).thenReturn(true);
 
-        when(bookingRepository.findAllByItemIdInAndStatus(any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(itemService.findAllItemsOfUser(any())).thenReturn(items);
-
-        List<Booking> result = bookingService.findAllBookingsOfOwnerItems(3, "REJECTED", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfOwnerItems(3, "REJECTED", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByItemIdInAndStatus(any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findPastBookingsOfOwnerItemsOk() {
-        List<Booking> bookings = prepareBookingTest();
-        List<Item> items = new ArrayList<>();
-        items.add(item);
-
-        when(bookingRepository.findAllByItemIdInAndEndIsBefore(any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(itemService.findAllItemsOfUser(any())).thenReturn(items);
+        List<BookingDtoResponse> bookings = prepareBookingDtos();
+        when(bookingRepository.findDtoPage(any(), any())).thenReturn(bookings);
+        when(itemService.hasItemsOfUser(any())).thenReturn(true);
 
-        List<Booking> result = bookingService.findAllBookingsOfOwnerItems(3, "PAST", 0, 100);
+        List<BookingDtoResponse> result = bookingService.findAllBookingsOfOwnerItems(3, "PAST", 0, 100);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(bookings, result);
-        verify(bookingRepository, times(1)).findAllByItemIdInAndEndIsBefore(any(), any(), any());
+        verify(bookingRepository, times(1)).findDtoPage(any(), eq(PageRequest.of(0, 100, SORT_BY_END_DESC)));
     }
 
     @Test
     void findAllBookingsOfOwnerItemsFailWithoutUserItems() {
-        List<Booking> bookings = prepareBookingTest();
-
-        when(bookingRepository.findAllByItemIdInOrderByEndDesc(any())).thenReturn(bookings);
-
         ValidationException ex = assertThrows(ValidationException.class, () -> bookingService.findAllBookingsOfOwnerItems(10, "ALL", null, null));
 
         assertEquals("У пользователя нет вещей", ex.getMessage());
     }
 
+    private BookingDtoResponse prepareArchivedBookingDto() {
+        return new BookingDtoResponse(7, LocalDateTime.of(2023, Month.MAY, 25, 12, 40),
+                LocalDateTime.of(2023, Month.MAY, 25, 12, 45), ItemMapper.toDto(item), UserMapper.toDto(user),
+                BookingState.APPROVED);
+    }
+
+    private List<BookingDtoResponse> prepareBookingDtos() {
+        return BookingMapper.toDto(prepareBookingTest());
+    }
+
     private List<Booking> prepareBookingTest() {
         Booking booking = new Booking();
         booking.setBooker(user);
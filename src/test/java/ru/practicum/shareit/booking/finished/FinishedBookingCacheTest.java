@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking.finished;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookerItemPair;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class FinishedBookingCacheTest {
+    private BookingRepository bookingRepository;
+    private FinishedBookingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        cache = new FinishedBookingCache(bookingRepository, 4);
+    }
+
+    @Test
+    void containsAddedPair() {
+        cache.add(1, 2);
+
+        assertTrue(cache.contains(1, 2));
+        assertFalse(cache.contains(2, 1));
+        assertFalse(cache.contains(1, 3));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedGeneration() {
+        cache.add(1, 1);
+        cache.add(1, 2);
+        cache.add(1, 3);
+        assertTrue(cache.contains(1, 1));
+        cache.add(1, 4);
+
+        assertTrue(cache.contains(1, 1));
+        assertFalse(cache.contains(1, 2));
+        assertTrue(cache.contains(1, 3));
+        assertTrue(cache.contains(1, 4));
+        assertTrue(cache.size() <= 4);
+    }
+
+    @Test
+    void loadFinishedBeforeAddsEndedPairsOnce() {
+        List<BookerItemPair> pairs = Collections.singletonList(pair(5, 6));
+        when(bookingRepository.findBookerItemPairsByEndBetween(any(), any(), any())).thenReturn(pairs);
+        LocalDateTime now = LocalDateTime.now().plusSeconds(1);
+
+        assertEquals(1, cache.loadFinishedBefore(now));
+        assertEquals(0, cache.loadFinishedBefore(now));
+
+        assertTrue(cache.contains(5, 6));
+        verify(bookingRepository, times(1)).findBookerItemPairsByEndBetween(any(), eq(now), any());
+    }
+
+    @Test
+    void invalidCapacityFails() {
+        assertThrows(IllegalArgumentException.class, () -> new FinishedBookingCache(bookingRepository, 1));
+    }
+
+    private static BookerItemPair pair(Integer bookerId, Integer itemId) {
+        return new BookerItemPair() {
+            @Override
+            public Integer getBookerId() {
+                return bookerId;
+            }
+
+            @Override
+            public Integer getItemId() {
+                return itemId;
+            }
+        };
+    }
+}
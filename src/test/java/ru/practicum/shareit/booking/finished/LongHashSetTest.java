@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking.finished;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongHashSetTest {
+
+    @Test
+    void addAndContainsOk() {
+        LongHashSet set = new LongHashSet(3);
+
+        assertTrue(set.add(1L << 32 | 7));
+        assertFalse(set.add(1L << 32 | 7));
+        assertTrue(set.add(-5));
+        assertTrue(set.contains(1L << 32 | 7));
+        assertTrue(set.contains(-5));
+        assertFalse(set.contains(7));
+        assertFalse(set.contains(0));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void addToFullSetFails() {
+        LongHashSet set = new LongHashSet(2);
+        set.add(1);
+        set.add(2);
+
+        assertTrue(set.isFull());
+        assertFalse(set.add(2));
+        assertThrows(IllegalStateException.class, () -> set.add(3));
+        assertThrows(IllegalArgumentException.class, () -> new LongHashSet(2).add(0));
+    }
+
+    @Test
+    void clearOk() {
+        LongHashSet set = new LongHashSet(2);
+        set.add(1);
+        set.add(2);
+
+        set.clear();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains(1));
+        assertTrue(set.add(3));
+    }
+
+    @Test
+    void matchesHashSet() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet(5000);
+        Set<Long> expected = new HashSet<>();
+
+        while (!set.isFull()) {
+            long key = ((long) (random.nextInt(1000) + 1) << 32) | (random.nextInt(1000) + 1);
+            assertEquals(expected.add(key), set.add(key));
+            long probe = ((long) (random.nextInt(1000) + 1) << 32) | (random.nextInt(1000) + 1);
+            assertEquals(expected.contains(probe), set.contains(probe));
+        }
+        assertEquals(expected.size(), set.size());
+        for (Long key : expected) {
+            assertTrue(set.contains(key));
+        }
+    }
+}
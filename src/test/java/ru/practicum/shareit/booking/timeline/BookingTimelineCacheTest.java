@@ -0,0 +1,89 @@
+package ru.practicum.shareit.booking.timeline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BookingTimelineCacheTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, Month.JANUARY, 1, 0, 0);
+
+    private BookingRepository bookingRepository;
+    private AtomicLong clock;
+    private AtomicReference<LocalDateTime> now;
+    private BookingTimelineCache cache;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        clock = new AtomicLong();
+        now = new AtomicReference<>(BASE);
+        cache = new BookingTimelineCache(bookingRepository, 1000, clock::get, now::get);
+        item = new Item("name", "description", true);
+        item.setId(1);
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndIsAfter(eq(1), any(), any()))
+                .thenReturn(List.of(booking(10, 1, 2), booking(11, 3, 5)));
+    }
+
+    @Test
+    void endedBookingsAreDroppedOnRead() {
+        assertEquals(2, cache.get(1).size());
+
+        now.set(BASE.plusHours(4));
+
+        assertEquals(1, cache.get(1).size());
+        assertTrue(cache.get(1).overlaps(BASE.plusHours(4), BASE.plusHours(6)));
+    }
+
+    @Test
+    void idleTimelinesAreEvicted() {
+        BookingTimeline first = cache.get(1);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        cache.evictIdle();
+        assertSame(first, cache.get(1));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        cache.evictIdle();
+
+        assertEquals(0, cache.size());
+        assertNotSame(first, cache.get(1));
+        verify(bookingRepository, times(2)).findAllByItemIdAndStatusInAndEndIsAfter(eq(1), any(), any());
+    }
+
+    @Test
+    void addKeepsTimelineAlive() {
+        cache.get(1);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+        cache.add(booking(12, 6, 7));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+
+        cache.evictIdle();
+
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.get(1).size());
+    }
+
+    @Test
+    void invalidIdle() {
+        assertThrows(IllegalArgumentException.class, () -> new BookingTimelineCache(bookingRepository, 0));
+    }
+
+    private Booking booking(int id, int startHour, int endHour) {
+        return new Booking(id, BASE.plusHours(startHour), BASE.plusHours(endHour), item, null, BookingState.APPROVED);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking.timeline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingTimelineTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, Month.JANUARY, 1, 0, 0);
+
+    private BookingTimeline timeline;
+
+    @BeforeEach
+    void setUp() {
+        timeline = new BookingTimeline();
+        timeline.add(booking(1, 10, 12, BookingState.APPROVED));
+        timeline.add(booking(2, 11, 14, BookingState.APPROVED));
+        timeline.add(booking(3, 16, 18, BookingState.WAITING));
+        timeline.add(booking(4, 20, 22, BookingState.APPROVED));
+    }
+
+    @Test
+    void findFreeSlotsBetweenApprovedBookings() {
+        List<TimeSlotDto> slots = timeline.findFreeSlots(hour(0), hour(24));
+
+        assertEquals(Arrays.asList(
+                new TimeSlotDto(hour(0), hour(10)),
+                new TimeSlotDto(hour(14), hour(20)),
+                new TimeSlotDto(hour(22), hour(24))), slots);
+    }
+
+    @Test
+    void findFreeSlotsClippedToPeriod() {
+        assertEquals(Arrays.asList(new TimeSlotDto(hour(14), hour(15))), timeline.findFreeSlots(hour(13), hour(15)));
+        assertTrue(timeline.findFreeSlots(hour(10), hour(14)).isEmpty());
+        assertEquals(Arrays.asList(new TimeSlotDto(hour(30), hour(40))), timeline.findFreeSlots(hour(30), hour(40)));
+    }
+
+    @Test
+    void approvedBookingUpdatesFreeSlots() {
+        timeline.add(booking(3, 16, 18, BookingState.APPROVED));
+
+        assertEquals(Arrays.asList(
+                new TimeSlotDto(hour(14), hour(16)),
+                new TimeSlotDto(hour(18), hour(20))), timeline.findFreeSlots(hour(14), hour(20)));
+
+        assertTrue(timeline.remove(booking(3, 16, 18, BookingState.REJECTED)));
+        assertEquals(Arrays.asList(new TimeSlotDto(hour(14), hour(20))), timeline.findFreeSlots(hour(14), hour(20)));
+    }
+
+    @Test
+    void removeEndedBeforeKeepsOngoingBookings() {
+        assertEquals(1, timeline.removeEndedBefore(hour(13)));
+
+        assertEquals(3, timeline.size());
+        assertTrue(timeline.overlaps(hour(13), hour(14)));
+        assertFalse(timeline.overlaps(hour(10), hour(11)));
+        assertEquals(0, timeline.removeEndedBefore(hour(13)));
+        assertEquals(3, timeline.removeEndedBefore(hour(22)));
+        assertEquals(0, timeline.size());
+    }
+
+    private static Booking booking(int id, int startHour, int endHour, BookingState status) {
+        return new Booking(id, hour(startHour), hour(endHour), null, null, status);
+    }
+
+    private static LocalDateTime hour(int hours) {
+        return BASE.plusHours(hours);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking.timeline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntervalTreeTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, Month.JANUARY, 1, 0, 0);
+
+    private IntervalTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new IntervalTree();
+        tree.add(1, hour(10), hour(12));
+        tree.add(2, hour(14), hour(15));
+        tree.add(3, hour(1), hour(3));
+    }
+
+    @Test
+    void overlapsOk() {
+        assertTrue(tree.overlaps(hour(11), hour(13)));
+        assertTrue(tree.overlaps(hour(0), hour(24)));
+        assertTrue(tree.overlaps(hour(14), hour(15)));
+        assertFalse(tree.overlaps(hour(12), hour(14)));
+        assertFalse(tree.overlaps(hour(3), hour(10)));
+        assertFalse(tree.overlaps(hour(15), hour(20)));
+    }
+
+    @Test
+    void removeOk() {
+        assertTrue(tree.remove(1, hour(10)));
+        assertFalse(tree.remove(1, hour(10)));
+        assertFalse(tree.remove(2, hour(1)));
+
+        assertEquals(2, tree.size());
+        assertFalse(tree.overlaps(hour(11), hour(13)));
+        assertTrue(tree.overlaps(hour(2), hour(13)));
+    }
+
+    @Test
+    void addSameIntervalReplaces() {
+        tree.add(1, hour(10), hour(20));
+
+        assertEquals(3, tree.size());
+        assertTrue(tree.overlaps(hour(18), hour(19)));
+    }
+
+    @Test
+    void forEachOverlappingInStartOrder() {
+        List<Integer> ids = new ArrayList<>();
+
+        tree.forEachOverlapping(hour(2), hour(14), (id, start, end) -> ids.add(id));
+
+        assertEquals(List.of(3, 1), ids);
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(42);
+        IntervalTree randomTree = new IntervalTree();
+        List<int[]> intervals = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            if (!intervals.isEmpty() && random.nextInt(4) == 0) {
+                int[] removed = intervals.remove(random.nextInt(intervals.size()));
+                assertTrue(randomTree.remove(removed[0], hour(removed[1])));
+            } else {
+                int start = random.nextInt(500);
+                int[] interval = {i, start, start + 1 + random.nextInt(20)};
+                intervals.add(interval);
+                randomTree.add(interval[0], hour(interval[1]), hour(interval[2]));
+            }
+
+            int from = random.nextInt(520);
+            int to = from + 1 + random.nextInt(10);
+            List<Integer> expected = new ArrayList<>();
+            for (int[] interval : intervals) {
+                if (interval[1] < to && interval[2] > from) {
+                    expected.add(interval[0]);
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            randomTree.forEachOverlapping(hour(from), hour(to), (id, start, end) -> actual.add(id));
+
+            assertEquals(intervals.size(), randomTree.size());
+            assertEquals(!expected.isEmpty(), randomTree.overlaps(hour(from), hour(to)));
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+        }
+    }
+
+    private static LocalDateTime hour(int hours) {
+        return BASE.plusHours(hours);
+    }
+}
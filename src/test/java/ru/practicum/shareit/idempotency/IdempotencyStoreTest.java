@@ -0,0 +1,127 @@
+package ru.practicum.shareit.idempotency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ConflictValidationException;
+import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+    private static final long TTL_MILLIS = 1000;
+
+    private AtomicLong nanos;
+    private IdempotencyStore store;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        nanos = new AtomicLong();
+        store = new IdempotencyStore(2, TTL_MILLIS, nanos::get);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void repeatedKeyReturnsStoredResponse() {
+        assertEquals(1, store.execute("items", 1, "key", "body", executions::incrementAndGet));
+        assertEquals(1, store.execute("items", 1, "key", "body", executions::incrementAndGet));
+
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void keyIsScopedByUserAndOperation() {
+        store.execute("items", 1, "key", "body", executions::incrementAndGet);
+        store.execute("items", 2, "key", "body", executions::incrementAndGet);
+        store.execute("bookings", 1, "key", "body", executions::incrementAndGet);
+
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void withoutKeyAlwaysExecutes() {
+        store.execute("items", 1, null, "body", executions::incrementAndGet);
+        store.execute("items", 1, null, "body", executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void keyWithDifferentRequestFails() {
+        store.execute("items", 1, "key", "body", executions::incrementAndGet);
+
+        assertThrows(ConflictValidationException.class,
+                () -> store.execute("items", 1, "key", "other", executions::incrementAndGet));
+        assertThrows(ValidationException.class,
+                () -> store.execute("items", 1, " ", "body", executions::incrementAndGet));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void failedExecutionReleasesKey() {
+        assertThrows(EntityNotFoundException.class, () -> store.execute("items", 1, "key", "body", () -> {
+            throw new EntityNotFoundException("Вещь не найдена");
+        }));
+
+        assertEquals(1, store.execute("items", 1, "key", "body", executions::incrementAndGet));
+    }
+
+    @Test
+    void expiredAndEldestKeysAreRemoved() {
+        store.execute("items", 1, "first", "body", executions::incrementAndGet);
+        store.execute("items", 1, "second", "body", executions::incrementAndGet);
+        store.execute("items", 1, "third", "body", executions::incrementAndGet);
+        assertEquals(2, store.size());
+        assertEquals(4, store.execute("items", 1, "first", "body", executions::incrementAndGet));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL_MILLIS));
+        assertEquals(5, store.execute("items", 1, "third", "body", executions::incrementAndGet));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void concurrentDuplicatesExecuteOnce() throws Exception {
+        IdempotencyStore concurrentStore = new IdempotencyStore(100, TTL_MILLIS, nanos::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 64; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return concurrentStore.execute("bookings", 1, "key", "body", () -> {
+                    sleep();
+                    return executions.incrementAndGet();
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> future : futures) {
+            assertEquals(1, future.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, executions.get());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
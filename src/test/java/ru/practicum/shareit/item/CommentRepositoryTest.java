@@ -0,0 +1,83 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+public class CommentRepositoryTest {
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Item item1;
+    private Item item2;
+    private Comment comment1;
+    private Comment comment2;
+    private Comment comment3;
+
+    @BeforeEach
+    void beforeEach() {
+        LocalDateTime date = LocalDateTime.of(2024, Month.MAY, 29, 12, 0);
+        User owner = userRepository.save(new User("user@owner.ru", "owner"));
+        User author = userRepository.save(new User("user@author.ru", "author"));
+
+        item1 = new Item("name1", "description1", true);
+        item1.setOwner(owner);
+        item1 = itemRepository.save(item1);
+        item2 = new Item("name2", "description2", true);
+        item2.setOwner(owner);
+        item2 = itemRepository.save(item2);
+
+        comment1 = saveComment("comment1", author, item1, date);
+        comment2 = saveComment("comment2", author, item2, date.plusMinutes(1));
+        comment3 = saveComment("comment3", author, item1, date.plusMinutes(2));
+    }
+
+    @Test
+    void findAllByItemIdInOk() {
+        List<Comment> result = commentRepository.findAllByItemIdIn(Arrays.asList(item1.getId(), item2.getId()));
+
+        assertEquals(3, result.size());
+        assertEquals(comment1, result.get(0));
+        assertEquals(comment2, result.get(1));
+        assertEquals(comment3, result.get(2));
+        assertEquals("author", result.get(0).getAuthor().getName());
+    }
+
+    @Test
+    void findAllByItemIdInOnlyRequestedItems() {
+        List<Comment> result = commentRepository.findAllByItemIdIn(Collections.singleton(item2.getId()));
+        assertEquals(1, result.size());
+        assertEquals(comment2, result.get(0));
+
+        result = commentRepository.findAllByItemIdIn(Collections.singleton(404));
+        assertEquals(0, result.size());
+    }
+
+    private Comment saveComment(String text, User author, Item item, LocalDateTime created) {
+        Comment comment = new Comment(text);
+        comment.setAuthor(author);
+        comment.setItem(item);
+        comment.setCreated(created);
+        return commentRepository.save(comment);
+    }
+}
@@ -7,10 +7,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingDtoForItem;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingDto;
@@ -23,6 +26,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -33,6 +37,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(ItemController.class)
 @AutoConfigureMockMvc
+@Import(IdempotencyStore.class)
 public class ItemControllerTest {
     @MockBean
     private ItemService itemService;
@@ -40,6 +45,29 @@ public class ItemControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Test
+    void createItemWithSameIdempotencyKeyOnce() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Item item = new Item("book", "book for read", Boolean.TRUE);
+        item.setId(3);
+        item.setOwner(new User(2, "user@ya.ru", "Irina"));
+        ItemDto itemDto = new ItemDto(null, "book", "book for read", Boolean.TRUE, null);
+
+        when(itemService.createItem(2, itemDto)).thenReturn(item);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/items")
+                    .header("X-Sharer-User-Id", 2)
+                    .header(IdempotencyStore.HEADER, "item-key")
+                    .content(mapper.writeValueAsString(itemDto))
+                    .characterEncoding(StandardCharsets.UTF_8)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(3)));
+        }
+        verify(itemService, times(1)).createItem(2, itemDto);
+    }
+
     @Test
     void createItemOk() throws Exception {
         ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
@@ -74,6 +102,22 @@ public class ItemControllerTest {
         verify(itemService, times(1)).createItem(2, itemDto);
     }
 
+    @Test
+    void findFreeSlotsOk() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, Month.MAY, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, Month.JUNE, 1, 0, 0);
+        when(itemService.findFreeSlots(3, from, to)).thenReturn(Collections.singletonList(
+                new TimeSlotDto(from, LocalDateTime.of(2030, Month.MAY, 10, 12, 0))));
+
+        mockMvc.perform(get("/items/3/availability")
+                .param("from", "2030-05-01T00:00:00")
+                .param("to", "2030-06-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].start", is("2030-05-01T00:00:00")))
+                .andExpect(jsonPath("$[0].end", is("2030-05-10T12:00:00")));
+        verify(itemService, times(1)).findFreeSlots(3, from, to);
+    }
+
     @Test
     void updateItemOk() throws Exception {
         ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
@@ -181,7 +225,7 @@ public class ItemControllerTest {
 
     @Test
     void findAllItemsOfUserWithoutPageOk() throws Exception {
-        when(itemService.findAllItemsWithBooking(2, 0, 1000000)).thenReturn(Collections.emptyList());
+        when(itemService.findAllItemsWithBooking(2, 0, 1000000, null)).thenReturn(Collections.emptyList());
         mockMvc.perform(get("/items")
                 .header("X-Sharer-User-Id", 2)
                 .characterEncoding(StandardCharsets.UTF_8)
@@ -190,12 +234,12 @@ public class ItemControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json("[]"));
 
-        verify(itemService, times(1)).findAllItemsWithBooking(2, 0, 1000000);
+        verify(itemService, times(1)).findAllItemsWithBooking(2, 0, 1000000, null);
     }
 
     @Test
     void findItemsBySearchWithoutPageOk() throws Exception {
-        when(itemService.searchItem("book", 0, 1000000)).thenReturn(Collections.emptyList());
+        when(itemService.searchItem("book", 0, 1000000, "DEFAULT", null)).thenReturn(Collections.emptyList());
         mockMvc.perform(get("/items/search")
                 .header("X-Sharer-User-Id", 2)
                 .param("text", "book")
@@ -205,7 +249,39 @@ public class ItemControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json("[]"));
 
-        verify(itemService, times(1)).searchItem("book", 0, 1000000);
+        verify(itemService, times(1)).searchItem("book", 0, 1000000, "DEFAULT", null);
+    }
+
+    @Test
+    void findItemsBySearchWithRelevanceOk() throws Exception {
+        when(itemService.searchItem("book", 0, 10, "relevance", null)).thenReturn(Collections.emptyList());
+        mockMvc.perform(get("/items/search")
+                .header("X-Sharer-User-Id", 2)
+                .param("text", "book")
+                .param("from", "0")
+                .param("size", "10")
+                .param("rank", "relevance")
+                .characterEncoding(StandardCharsets.UTF_8)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+
+        verify(itemService, times(1)).searchItem("book", 0, 10, "relevance", null);
+    }
+
+    @Test
+    void suggestOk() throws Exception {
+        when(itemService.suggestItemNames("dri", 10)).thenReturn(Arrays.asList("drill", "driver"));
+        mockMvc.perform(get("/items/suggest")
+                .header("X-Sharer-User-Id", 2)
+                .param("prefix", "dri")
+                .characterEncoding(StandardCharsets.UTF_8)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"drill\", \"driver\"]"));
+
+        verify(itemService, times(1)).suggestItemNames("dri", 10);
     }
 
     @Test
@@ -62,7 +62,7 @@ public class ItemIntegrationTest {
         itemDto.setName("name");
         itemDto.setDescription("description");
         itemDto.setAvailable(true);
-        ItemDto resultItem = itemController.create(resultUser1.getId(), itemDto);
+        ItemDto resultItem = itemController.create(resultUser1.getId(), null, itemDto);
 
         user1Id = resultUser1.getId();
         user2Id = resultUser2.getId();
@@ -97,7 +97,7 @@ public class ItemIntegrationTest {
         itemController.update(user1Id, itemId, itemDto);
 
         BookingDto bookingDto = new BookingDto(LocalDateTime.now().plusMinutes(5), LocalDateTime.now().plusMinutes(10), itemId);
-        assertThrows(ValidationException.class, () -> bookingController.create(user2Id, bookingDto));
+        assertThrows(ValidationException.class, () -> bookingController.create(user2Id, null, bookingDto));
     }
 
     @Test
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.item;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.CrudRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.item.dto.ItemWithBookingDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ItemQueryCountTest {
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    List<JpaRepository> repositoryList;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void beforeEach() {
+        repositoryList.forEach(CrudRepository::deleteAll);
+        owner = userRepository.save(new User("owner@owner.ru", "owner"));
+        booker = userRepository.save(new User("booker@booker.ru", "booker"));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void ownerItemPageCostsConstantNumberOfStatements() {
+        createItems(2);
+        statistics.clear();
+        List<ItemWithBookingDto> smallPage = itemService.findAllItemsWithBooking(owner.getId(), 0, 100);
+        long smallPageStatements = statistics.getPrepareStatementCount();
+
+        createItems(20);
+        statistics.clear();
+        List<ItemWithBookingDto> largePage = itemService.findAllItemsWithBooking(owner.getId(), 0, 100);
+        long largePageStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(2, smallPage.size());
+        assertEquals(22, largePage.size());
+        assertEquals(2, largePage.get(21).getComments().size());
+        assertNotNull(largePage.get(21).getLastBooking());
+        assertNotNull(largePage.get(21).getNextBooking());
+        assertEquals(smallPageStatements, largePageStatements);
+    }
+
+    @Test
+    void itemDetailCostsConstantNumberOfStatements() {
+        Item item = createItems(1);
+        statistics.clear();
+        itemService.findItemWithBookingById(owner.getId(), item.getId());
+        long fewCommentsStatements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 20; i++) {
+            saveComment(item);
+        }
+        statistics.clear();
+        ItemWithBookingDto itemWithBooking = itemService.findItemWithBookingById(owner.getId(), item.getId());
+        long manyCommentsStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(22, itemWithBooking.getComments().size());
+        assertEquals(fewCommentsStatements, manyCommentsStatements);
+    }
+
+    private Item createItems(int count) {
+        Item item = null;
+        for (int i = 0; i < count; i++) {
+            item = new Item("name" + i, "description" + i, true);
+            item.setOwner(owner);
+            item = itemRepository.save(item);
+
+            saveBooking(item, LocalDateTime.now().minusDays(2));
+            saveBooking(item, LocalDateTime.now().plusDays(2));
+            saveComment(item);
+            saveComment(item);
+        }
+        return item;
+    }
+
+    private void saveBooking(Item item, LocalDateTime start) {
+        Booking booking = new Booking(start, start.plusDays(1));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingState.APPROVED);
+        bookingRepository.save(booking);
+    }
+
+    private void saveComment(Item item) {
+        Comment comment = new Comment("comment");
+        comment.setItem(item);
+        comment.setAuthor(booker);
+        comment.setCreated(LocalDateTime.now());
+        commentRepository.save(comment);
+    }
+}
@@ -4,6 +4,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.ItemRequestRepository;
@@ -12,9 +15,14 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 public class ItemRepositoryTest {
@@ -50,6 +58,12 @@ public class ItemRepositoryTest {
         assertEquals(item, list.get(0));
     }
 
+    @Test
+    void existsByOwnerIdOk() {
+        assertTrue(itemRepository.existsByOwnerId(user.getId()));
+        assertFalse(itemRepository.existsByOwnerId(404));
+    }
+
     @Test
     void findAllByNameOrDescriptionContainingIgnoreCaseAndAvailableOk() {
         List<Item> list = itemRepository.findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable("ME", "", true);
@@ -70,6 +84,116 @@ public class ItemRepositoryTest {
         assertEquals(0, list.size());
     }
 
+    @Test
+    void searchAvailableOk() {
+        Item otherItem = new Item("Дрель", "Аккумуляторная дрель", true);
+        otherItem.setOwner(user);
+        otherItem = itemRepository.save(otherItem);
+        Item unavailableItem = new Item("name2", "description2", false);
+        unavailableItem.setOwner(user);
+        itemRepository.save(unavailableItem);
+
+        List<Item> list = itemRepository.searchAvailable("ME", 0, PageRequest.of(0, 10)).getContent();
+        assertEquals(1, list.size());
+        assertEquals(item, list.get(0));
+
+        list = itemRepository.searchAvailable("ДРЕЛЬ", 0, PageRequest.of(0, 10)).getContent();
+        assertEquals(1, list.size());
+        assertEquals(otherItem, list.get(0));
+
+        list = itemRepository.searchAvailable("dsfgsdfg", 0, PageRequest.of(0, 10)).getContent();
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    void findAllByAvailableIsTrueAndIdGreaterThanOrderByIdAscOk() {
+        Item otherItem = new Item("name2", "description2", true);
+        otherItem.setOwner(user);
+        otherItem = itemRepository.save(otherItem);
+
+        List<Item> list = itemRepository.findAllByAvailableIsTrueAndIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 1));
+        assertEquals(1, list.size());
+        assertEquals(item, list.get(0));
+
+        list = itemRepository.findAllByAvailableIsTrueAndIdGreaterThanOrderByIdAsc(item.getId(), PageRequest.of(0, 1));
+        assertEquals(1, list.size());
+        assertEquals(otherItem, list.get(0));
+    }
+
+    @Test
+    void searchAvailableSliceOk() {
+        Item otherItem = new Item("name2", "description2", true);
+        otherItem.setOwner(user);
+        otherItem = itemRepository.save(otherItem);
+
+        Slice<Item> slice = itemRepository.searchAvailable("name", 0, PageRequest.of(0, 1));
+        assertEquals(List.of(item), slice.getContent());
+        assertTrue(slice.hasNext());
+
+        slice = itemRepository.searchAvailable("name", 0, PageRequest.of(1, 1));
+        assertEquals(List.of(otherItem), slice.getContent());
+        assertFalse(slice.hasNext());
+    }
+
+    @Test
+    void findAllByOwnerIdPageOk() {
+        Item otherItem = new Item("name2", "description2", true);
+        otherItem.setOwner(user);
+        otherItem = itemRepository.save(otherItem);
+
+        List<Item> list = itemRepository.findAllByOwnerId(user.getId(), PageRequest.of(1, 1, Sort.by("id")));
+        assertEquals(List.of(otherItem), list);
+    }
+
+    @Test
+    void searchAvailableAfterIdOk() {
+        Item otherItem = new Item("name2", "description2", true);
+        otherItem.setOwner(user);
+        otherItem = itemRepository.save(otherItem);
+
+        List<Item> list = itemRepository.searchAvailable("name", item.getId(), PageRequest.of(0, 10)).getContent();
+        assertEquals(1, list.size());
+        assertEquals(otherItem, list.get(0));
+    }
+
+    @Test
+    void findAllByOwnerIdAndIdGreaterThanOk() {
+        Item otherItem = new Item("name2", "description2", false);
+        otherItem.setOwner(user);
+        otherItem = itemRepository.save(otherItem);
+
+        List<Item> list = itemRepository.findAllByOwnerIdAndIdGreaterThan(user.getId(), item.getId(),
+                PageRequest.of(0, 10, Sort.by("id")));
+        assertEquals(1, list.size());
+        assertEquals(otherItem, list.get(0));
+
+        list = itemRepository.findAllByOwnerIdAndIdGreaterThan(user.getId(), otherItem.getId(),
+                PageRequest.of(0, 10, Sort.by("id")));
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    void streamAllByOwnerIdOrderByIdOk() {
+        Item otherItem = new Item("name2", "description2", false);
+        otherItem.setOwner(user);
+        otherItem = itemRepository.save(otherItem);
+
+        List<Item> list;
+        try (Stream<Item> items = itemRepository.streamAllByOwnerIdOrderById(user.getId())) {
+            list = items.collect(Collectors.toList());
+        }
+        assertEquals(2, list.size());
+        assertEquals(item, list.get(0));
+        assertEquals(otherItem, list.get(1));
+    }
+
+    @Test
+    void findAllByRequestIdInOk() {
+        List<Item> list = itemRepository.findAllByRequestIdIn(Arrays.asList(request.getId(), 404));
+        assertEquals(1, list.size());
+        assertEquals(item, list.get(0));
+    }
+
     @Test
     void findAllByRequestId() {
         List<Item> list = itemRepository.findAllByRequestId(request.getId());
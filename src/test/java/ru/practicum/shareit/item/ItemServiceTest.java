@@ -2,31 +2,48 @@ package ru.practicum.shareit.item;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingCount;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.finished.FinishedBookingCache;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
 import ru.practicum.shareit.exception.AccessDeniedException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
+import ru.practicum.shareit.exception.IncorrectStateException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemWithBookingDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.event.RequestItemSavedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,6 +57,9 @@ public class ItemServiceTest {
     private BookingRepository bookingRepository;
     private CommentRepository commentRepository;
     private ItemRequestRepository itemRequestRepository;
+    private ArchivedBookingRepository archivedBookingRepository;
+    private ItemSearchIndex itemSearchIndex;
+    private ApplicationEventPublisher eventPublisher;
     private Item item;
     private User userOwner;
     private User userAsker;
@@ -56,7 +76,12 @@ public class ItemServiceTest {
         bookingRepository = mock(BookingRepository.class);
         commentRepository = mock(CommentRepository.class);
         itemRequestRepository = mock(ItemRequestRepository.class);
-        itemService = new ItemService(itemRepository, userRepository, bookingRepository, commentRepository, itemRequestRepository);
+        itemSearchIndex = mock(ItemSearchIndex.class);
+        archivedBookingRepository = mock(ArchivedBookingRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        itemService = new ItemService(itemRepository, userRepository, bookingRepository, commentRepository,
+                itemRequestRepository, itemSearchIndex, new BookingTimelineCache(bookingRepository, 600000),
+                archivedBookingRepository, new FinishedBookingCache(bookingRepository, 100), eventPublisher);
         LocalDateTime start = LocalDateTime.of(2024, Month.MAY, 29, 12, 0);
         userOwner = new User(1, "user@owner.ru", "owner");
         userAsker = new User(2, "user@asker.ru", "asker");
@@ -74,11 +99,11 @@ public class ItemServiceTest {
 
         Mockito.doReturn(Optional.of(item)).when(itemRepository).findById(item.getId());
         Mockito.doReturn(Collections.singletonList(item)).when(itemRepository).findAllByOwnerId(userOwner.getId());
-        Mockito.doReturn(new PageImpl<>(Collections.singletonList(item))).when(itemRepository).findAllByOwnerId(eq(userOwner.getId()), any());
+        Mockito.doReturn(Collections.singletonList(item)).when(itemRepository).findAllByOwnerId(eq(userOwner.getId()), any());
         Mockito.doReturn(Collections.singletonList(item)).when(itemRepository).findAllByRequestId(request.getId());
         Mockito.doReturn(Collections.singletonList(item)).when(itemRepository).findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable(any(), any(), any());
-        Mockito.doReturn(new PageImpl<>(Collections.singletonList(item))).when(itemRepository).findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable(any(), any(), any(), any());
-        Mockito.doReturn(Collections.singletonList(comment)).when(commentRepository).findAllByItemId(item.getId());
+        Mockito.doReturn(new SliceImpl<>(Collections.singletonList(item))).when(itemRepository).searchAvailable(any(), any(), any());
+        Mockito.doReturn(Collections.singletonList(comment)).when(commentRepository).findAllByItemIdIn(any());
         Mockito.doReturn(Optional.of(userOwner)).when(userRepository).findById(userOwner.getId());
         Mockito.doReturn(Optional.of(userAsker)).when(userRepository).findById(userAsker.getId());
         Mockito.doReturn(Optional.of(request)).when(itemRequestRepository).findById(request.getId());
@@ -86,6 +111,8 @@ public class ItemServiceTest {
         Mockito.doAnswer(invocationOnMock -> invocationOnMock.getArgument(0)).when(commentRepository).save(any());
         Mockito.doReturn(oldBooking).when(bookingRepository).findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(eq(item.getId()), any(), eq(BookingState.APPROVED));
         Mockito.doReturn(newBooking).when(bookingRepository).findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(eq(item.getId()), any(), eq(BookingState.APPROVED));
+        Mockito.doReturn(Collections.singletonList(oldBooking)).when(bookingRepository).findLastBookingsOfItems(any(), any(), eq(BookingState.APPROVED));
+        Mockito.doReturn(Collections.singletonList(newBooking)).when(bookingRepository).findNextBookingsOfItems(any(), any(), eq(BookingState.APPROVED));
         Mockito.doReturn(newBooking).when(bookingRepository).findFirst1ByBookerIdAndItemIdAndEndIsBefore(eq(userAsker.getId()), eq(item.getId()), any());
     }
 
@@ -102,6 +129,21 @@ public class ItemServiceTest {
         verify(userRepository, times(1)).findById(any());
         verify(itemRequestRepository, times(1)).findById(any());
         verify(itemRepository, times(1)).save(any());
+        ArgumentCaptor<RequestItemSavedEvent> event = ArgumentCaptor.forClass(RequestItemSavedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(request.getId(), event.getValue().getItem().getRequestId());
+        assertEquals(userAsker.getId(), event.getValue().getRequestorId());
+        assertNull(event.getValue().getPreviousRequestId());
+        assertTrue(event.getValue().isCreated());
+    }
+
+    @Test
+    void createItemWithoutRequestPublishesNothing() {
+        itemDto.setRequestId(null);
+
+        itemService.createItem(userOwner.getId(), itemDto);
+
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -188,12 +230,64 @@ public class ItemServiceTest {
         verify(itemRepository, times(1)).findAllByOwnerId(any());
     }
 
+    @Test
+    void hasItemsOfUserOk() {
+        Mockito.doReturn(true).when(itemRepository).existsByOwnerId(userOwner.getId());
+
+        assertTrue(itemService.hasItemsOfUser(userOwner.getId()));
+        assertFalse(itemService.hasItemsOfUser(userAsker.getId()));
+        assertThrows(EntityNotFoundException.class, () -> itemService.hasItemsOfUser(404));
+        verify(itemRepository, times(0)).findAllByOwnerId(any());
+    }
+
+    @Test
+    void findFreeSlotsOk() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        Booking approved = new Booking(7, from.plusHours(2), from.plusHours(4), item, userAsker, BookingState.APPROVED);
+        Mockito.doReturn(Collections.singletonList(approved)).when(bookingRepository)
+                .findAllByItemIdAndStatusInAndEndIsAfter(eq(item.getId()), any(), any());
+
+        List<TimeSlotDto> slots = itemService.findFreeSlots(item.getId(), from, from.plusHours(6));
+
+        assertEquals(2, slots.size());
+        assertEquals(new TimeSlotDto(from, from.plusHours(2)), slots.get(0));
+        assertEquals(new TimeSlotDto(from.plusHours(4), from.plusHours(6)), slots.get(1));
+        assertTrue(itemService.findFreeSlots(item.getId(), from.minusDays(3), from.minusDays(2)).isEmpty());
+    }
+
+    @Test
+    void findFreeSlotsValidation() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+
+        assertThrows(ValidationException.class, () -> itemService.findFreeSlots(item.getId(), from, from));
+        assertThrows(ValidationException.class, () -> itemService.findFreeSlots(item.getId(), null, from));
+        assertThrows(EntityNotFoundException.class, () -> itemService.findFreeSlots(404, from, from.plusHours(1)));
+    }
+
     @Test
     void findByRequestOk() {
-        List<Item> list = itemService.findAllItemsByRequest(request.getId());
+        Mockito.doReturn(Collections.singletonList(ItemMapper.toDto(item))).when(itemRepository)
+                .findDtosByRequestId(request.getId());
+        List<ItemDto> list = itemService.findAllItemsByRequest(request.getId());
         assertEquals(1, list.size());
-        assertEquals(item, list.get(0));
-        verify(itemRepository, times(1)).findAllByRequestId(any());
+        assertEquals(ItemMapper.toDto(item), list.get(0));
+        verify(itemRepository, times(1)).findDtosByRequestId(any());
+    }
+
+    @Test
+    void findByRequestsGroupsByRequestId() {
+        ItemDto otherItem = new ItemDto(5, "name5", "description5", true, 7);
+        Mockito.doReturn(Arrays.asList(ItemMapper.toDto(item), otherItem)).when(itemRepository)
+                .findDtosByRequestIdIn(Arrays.asList(request.getId(), 7, 8));
+
+        Map<Integer, List<ItemDto>> items = itemService.findAllItemDtosByRequests(Arrays.asList(request.getId(), 7, 8));
+
+        assertEquals(List.of(ItemMapper.toDto(item)), items.get(request.getId()));
+        assertEquals(List.of(otherItem), items.get(7));
+        assertFalse(items.containsKey(8));
+        verify(itemRepository, times(1)).findDtosByRequestIdIn(any());
+        assertTrue(itemService.findAllItemDtosByRequests(Collections.emptyList()).isEmpty());
+        verify(itemRepository, times(1)).findDtosByRequestIdIn(any());
     }
 
     @Test
@@ -206,7 +300,7 @@ public class ItemServiceTest {
     void findOwnItemWithBooking() {
         ItemWithBookingDto itemWithBooking = itemService.findItemWithBookingById(userOwner.getId(), item.getId());
         verify(itemRepository, times(1)).findById(any());
-        verify(commentRepository, times(1)).findAllByItemId(any());
+        verify(commentRepository, times(1)).findAllByItemIdIn(any());
         verify(bookingRepository, times(1)).findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(any(), any(), any());
         verify(bookingRepository, times(1)).findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(any(), any(), any());
 
@@ -224,7 +318,7 @@ public class ItemServiceTest {
     void findForeignItemWithBooking() {
         ItemWithBookingDto itemWithBooking = itemService.findItemWithBookingById(userAsker.getId(), item.getId());
         verify(itemRepository, times(1)).findById(any());
-        verify(commentRepository, times(1)).findAllByItemId(any());
+        verify(commentRepository, times(1)).findAllByItemIdIn(any());
         verify(bookingRepository, times(0)).findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(any(), any(), any());
         verify(bookingRepository, times(0)).findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(any(), any(), any());
 
@@ -243,9 +337,11 @@ public class ItemServiceTest {
         List<ItemWithBookingDto> list = itemService.findAllItemsWithBooking(userOwner.getId(), 0, 100);
 
         verify(itemRepository, times(1)).findAllByOwnerId(any(), any());
-        verify(commentRepository, times(1)).findAllByItemId(any());
-        verify(bookingRepository, times(1)).findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(any(), any(), any());
-        verify(bookingRepository, times(1)).findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(any(), any(), any());
+        verify(commentRepository, times(1)).findAllByItemIdIn(any());
+        verify(bookingRepository, times(1)).findLastBookingsOfItems(any(), any(), any());
+        verify(bookingRepository, times(1)).findNextBookingsOfItems(any(), any(), any());
+        verify(bookingRepository, times(0)).findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(any(), any(), any());
+        verify(bookingRepository, times(0)).findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(any(), any(), any());
 
         assertEquals(1, list.size());
         ItemWithBookingDto itemWithBooking = list.get(0);
@@ -259,6 +355,99 @@ public class ItemServiceTest {
         assertEquals(comment.getId(), itemWithBooking.getComments().get(0).getId());
     }
 
+    @Test
+    void findAllItemsWithBookingCallsBatchRepositoryMethodsOncePerPage() {
+        Item item2 = new Item(2, "name2", "description2", true, userOwner, null);
+        Item item3 = new Item(3, "name3", "description3", true, userOwner, null);
+        Booking item3Booking = new Booking(4, oldBooking.getStart(), oldBooking.getEnd(), item3, userAsker, BookingState.APPROVED);
+        Mockito.doReturn(Arrays.asList(item, item2, item3)).when(itemRepository).findAllByOwnerId(eq(userOwner.getId()), any());
+        Mockito.doReturn(Arrays.asList(oldBooking, item3Booking)).when(bookingRepository).findLastBookingsOfItems(any(), any(), eq(BookingState.APPROVED));
+
+        List<ItemWithBookingDto> list = itemService.findAllItemsWithBooking(userOwner.getId(), 0, 100);
+
+        verify(bookingRepository, times(1)).findLastBookingsOfItems(any(), any(), any());
+        verify(bookingRepository, times(1)).findNextBookingsOfItems(any(), any(), any());
+        verify(commentRepository, times(1)).findAllByItemIdIn(any());
+        verify(bookingRepository, times(0)).findFirst1ByItemIdAndStartIsBeforeAndStatusOrderByStartDesc(any(), any(), any());
+        verify(bookingRepository, times(0)).findFirst1ByItemIdAndStartIsAfterAndStatusOrderByStartAsc(any(), any(), any());
+
+        assertEquals(3, list.size());
+        assertEquals(1, list.get(0).getComments().size());
+        assertEquals(0, list.get(1).getComments().size());
+        assertEquals(0, list.get(2).getComments().size());
+        assertEquals(oldBooking.getId(), list.get(0).getLastBooking().getId());
+        assertEquals(newBooking.getId(), list.get(0).getNextBooking().getId());
+        assertNull(list.get(1).getLastBooking());
+        assertNull(list.get(1).getNextBooking());
+        assertEquals(item3Booking.getId(), list.get(2).getLastBooking().getId());
+        assertNull(list.get(2).getNextBooking());
+    }
+
+    @Test
+    void findAllItemsWithBookingTakesLastBookingFromArchive() {
+        Item item2 = new Item(2, "name2", "description2", true, userOwner, null);
+        ArchivedBooking archivedBooking = new ArchivedBooking();
+        archivedBooking.setId(5);
+        archivedBooking.setStart(oldBooking.getStart().minusYears(2));
+        archivedBooking.setEnd(oldBooking.getEnd().minusYears(2));
+        archivedBooking.setItem(item2);
+        archivedBooking.setBooker(userAsker);
+        archivedBooking.setStatus(BookingState.APPROVED);
+        Mockito.doReturn(Arrays.asList(item, item2)).when(itemRepository).findAllByOwnerId(eq(userOwner.getId()), any());
+        Mockito.doReturn(Collections.singletonList(archivedBooking)).when(archivedBookingRepository)
+                .findLastBookingsOfItems(eq(Collections.singleton(item2.getId())), any(), eq(BookingState.APPROVED));
+
+        List<ItemWithBookingDto> list = itemService.findAllItemsWithBooking(userOwner.getId(), 0, 100);
+
+        assertEquals(oldBooking.getId(), list.get(0).getLastBooking().getId());
+        assertEquals(archivedBooking.getId(), list.get(1).getLastBooking().getId());
+        assertEquals(userAsker.getId(), list.get(1).getLastBooking().getBookerId());
+        verify(archivedBookingRepository, times(1)).findLastBookingsOfItems(any(), any(), any());
+    }
+
+    @Test
+    void findAllItemsWithBookingEmptyPage() {
+        Mockito.doReturn(Collections.emptyList()).when(itemRepository).findAllByOwnerId(eq(userOwner.getId()), any());
+
+        List<ItemWithBookingDto> list = itemService.findAllItemsWithBooking(userOwner.getId(), 0, 100);
+
+        assertEquals(0, list.size());
+        verify(bookingRepository, times(0)).findLastBookingsOfItems(any(), any(), any());
+        verify(bookingRepository, times(0)).findNextBookingsOfItems(any(), any(), any());
+        verify(commentRepository, times(0)).findAllByItemIdIn(any());
+    }
+
+    @Test
+    void findAllItemsWithBookingAfterCursor() {
+        Mockito.doReturn(Collections.emptyList()).when(itemRepository)
+                .findAllByOwnerIdAndIdGreaterThan(eq(userOwner.getId()), eq(item.getId()), any());
+
+        List<ItemWithBookingDto> list = itemService.findAllItemsWithBooking(userOwner.getId(), 0, 10,
+                PageCursor.of(item.getId()).encode());
+
+        assertEquals(0, list.size());
+        verify(itemRepository, times(0)).findAllByOwnerId(any(), any());
+    }
+
+    @Test
+    void streamAllItemsWithBooking() {
+        Item otherItem = new Item(2, "other", "description2", true, userOwner, null);
+        when(itemRepository.streamAllByOwnerIdOrderById(userOwner.getId())).thenReturn(Stream.of(item, otherItem));
+        when(bookingRepository.findLastBookingsOfItems(any(), any(), any())).thenReturn(Collections.singletonList(oldBooking));
+        when(bookingRepository.findNextBookingsOfItems(any(), any(), any())).thenReturn(Collections.singletonList(newBooking));
+        List<ItemWithBookingDto> list = new ArrayList<>();
+
+        itemService.streamAllItemsWithBooking(userOwner.getId(), list::add);
+
+        assertEquals(2, list.size());
+        assertEquals(item.getId(), list.get(0).getId());
+        assertEquals(oldBooking.getId(), list.get(0).getLastBooking().getId());
+        assertEquals(otherItem.getId(), list.get(1).getId());
+        assertNull(list.get(1).getLastBooking());
+        verify(bookingRepository, times(1)).findLastBookingsOfItems(any(), any(), any());
+        verify(itemRepository, times(1)).detachAll();
+    }
+
     @Test
     void findAllItemsWithBookingFails() {
         assertThrows(ValidationException.class, () -> itemService.findAllItemsWithBooking(1, -1, -1));
@@ -268,11 +457,80 @@ public class ItemServiceTest {
     void searchItem() {
         List<Item> list = itemService.searchItem("name", 0, 100);
 
-        verify(itemRepository, times(1)).findAllByNameOrDescriptionContainingIgnoreCaseAndAvailable(any(), any(), any(), any());
+        verify(itemRepository, times(1)).searchAvailable(any(), any(), any());
         assertEquals(1, list.size());
         assertEquals(item, list.get(0));
     }
 
+    @Test
+    void searchItemUsesIndex() {
+        Item otherItem = new Item(2, "other", "nameless", true, userOwner, null);
+        Item staleItem = new Item(3, "lamp", "description3", true, userOwner, null);
+        when(itemSearchIndex.canSearch("NAME")).thenReturn(true);
+        when(itemSearchIndex.findCandidates("NAME")).thenReturn(new int[]{1, 2, 3});
+        Mockito.doReturn(Arrays.asList(staleItem, otherItem, item)).when(itemRepository).findAllById(any());
+
+        List<Item> list = itemService.searchItem("NAME", 0, 100);
+        assertEquals(Arrays.asList(item, otherItem), list);
+
+        list = itemService.searchItem("NAME", 1, 1);
+        assertEquals(Collections.singletonList(otherItem), list);
+        verify(itemRepository, times(0)).searchAvailable(any(), any(), any());
+    }
+
+    @Test
+    void searchItemAfterCursor() {
+        Item otherItem = new Item(2, "other", "nameless", true, userOwner, null);
+        when(itemSearchIndex.canSearch("name")).thenReturn(true);
+        when(itemSearchIndex.findCandidates("name")).thenReturn(new int[]{1, 2});
+        Mockito.doReturn(Collections.singletonList(otherItem)).when(itemRepository).findAllById(Collections.singletonList(2));
+
+        List<Item> list = itemService.searchItem("name", 0, 10, "DEFAULT", PageCursor.of(1).encode());
+        assertEquals(Collections.singletonList(otherItem), list);
+
+        assertThrows(ValidationException.class,
+                () -> itemService.searchItem("name", 0, 10, "RELEVANCE", PageCursor.of(1).encode()));
+        assertThrows(ValidationException.class,
+                () -> itemService.searchItem("name", 0, 10, "DEFAULT", PageCursor.of(LocalDateTime.now(), 1).encode()));
+    }
+
+    @Test
+    void searchItemByRelevance() {
+        Item otherItem = new Item(2, "other", "name of name", true, userOwner, null);
+        Item bookedItem = new Item(3, "third", "name", true, userOwner, null);
+        ItemBookingCount bookingCount = mock(ItemBookingCount.class);
+        when(bookingCount.getItemId()).thenReturn(3);
+        when(bookingCount.getBookingCount()).thenReturn(5L);
+        Mockito.doReturn(new SliceImpl<>(Arrays.asList(item, otherItem, bookedItem)))
+                .when(itemRepository).searchAvailable(any(), any(), any());
+        when(bookingRepository.countBookingsOfItemsEndedBefore(any(), any(), eq(BookingState.APPROVED)))
+                .thenReturn(Collections.singletonList(bookingCount));
+
+        List<Item> list = itemService.searchItem("NAME", 0, 10, "relevance", null);
+        assertEquals(Arrays.asList(item, bookedItem, otherItem), list);
+
+        list = itemService.searchItem("NAME", 2, 2, "RELEVANCE", null);
+        assertEquals(Collections.singletonList(otherItem), list);
+
+        list = itemService.searchItem("NAME", 4, 2, "relevance", null);
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    void searchItemUnknownRank() {
+        assertThrows(IncorrectStateException.class, () -> itemService.searchItem("name", 0, 10, "popular", null));
+    }
+
+    @Test
+    void suggestItemNames() {
+        when(itemSearchIndex.suggest("дре", 5)).thenReturn(Arrays.asList("дрель", "дрезина"));
+
+        assertEquals(Arrays.asList("дрель", "дрезина"), itemService.suggestItemNames(" дре ", 5));
+        assertEquals(0, itemService.suggestItemNames(" ", 5).size());
+        assertEquals(0, itemService.suggestItemNames(null, 5).size());
+        assertThrows(ValidationException.class, () -> itemService.suggestItemNames("дре", 0));
+    }
+
     @Test
     void searchItemFails() {
         assertThrows(ValidationException.class, () -> itemService.searchItem("name", -1, -1));
@@ -304,6 +562,31 @@ public class ItemServiceTest {
         assertEquals(commentDto.getText(), comment.getText());
     }
 
+    @Test
+    void createCommentChecksFinishedBookingOnce() {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setText("text");
+
+        itemService.createComment(userAsker.getId(), item.getId(), commentDto);
+        itemService.createComment(userAsker.getId(), item.getId(), commentDto);
+
+        verify(bookingRepository, times(1)).findFirst1ByBookerIdAndItemIdAndEndIsBefore(any(), any(), any());
+        verify(commentRepository, times(2)).save(any());
+    }
+
+    @Test
+    void createCommentWithArchivedBookingOk() {
+        Mockito.doReturn(null).when(bookingRepository).findFirst1ByBookerIdAndItemIdAndEndIsBefore(any(), any(), any());
+        when(archivedBookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(eq(userAsker.getId()),
+                eq(item.getId()), any())).thenReturn(true);
+        CommentDto commentDto = new CommentDto();
+        commentDto.setText("text");
+
+        itemService.createComment(userAsker.getId(), item.getId(), commentDto);
+
+        verify(commentRepository, times(1)).save(any());
+    }
+
     @Test
     void createCommentValidations() {
         CommentDto commentDto = new CommentDto();
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemNameTrieTest {
+    private ItemNameTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new ItemNameTrie();
+        trie.add("Дрель ударная");
+        trie.add("Дрель аккумуляторная");
+        trie.add("Дрезина");
+        trie.add("Друшлаг, дрель");
+    }
+
+    @Test
+    void completeOrderedByCount() {
+        assertEquals(Arrays.asList("дрель", "дрезина", "друшлаг"), trie.complete("ДР", 10));
+        assertEquals(Arrays.asList("дрель", "дрезина"), trie.complete("дре", 10));
+        assertEquals(Collections.singletonList("дрель"), trie.complete("др", 1));
+        assertEquals(Arrays.asList("дрель", "аккумуляторная", "дрезина"), trie.complete("", 3));
+    }
+
+    @Test
+    void completeNotFound() {
+        assertEquals(Collections.emptyList(), trie.complete("пила", 10));
+        assertEquals(Collections.emptyList(), trie.complete("дрелька", 10));
+    }
+
+    @Test
+    void completeInsideCompressedEdge() {
+        assertEquals(Collections.singletonList("аккумуляторная"), trie.complete("аккум", 10));
+        assertEquals(Collections.singletonList("дрезина"), trie.complete("дрез", 10));
+    }
+
+    @Test
+    void removeOk() {
+        trie.remove("Дрель ударная");
+        trie.remove("Друшлаг, дрель");
+        assertEquals(Arrays.asList("дрезина", "дрель"), trie.complete("др", 10));
+        assertEquals(Collections.emptyList(), trie.complete("уд", 10));
+
+        trie.remove("Дрезина");
+        trie.remove("Дрель аккумуляторная");
+        assertEquals(Collections.emptyList(), trie.complete("д", 10));
+    }
+
+    @Test
+    void removeUnknownNameIgnored() {
+        trie.remove("Пила");
+        trie.remove("Др");
+        assertEquals(Arrays.asList("дрель", "дрезина", "друшлаг"), trie.complete("др", 10));
+    }
+
+    @Test
+    void tokensOfSplitsAndDeduplicates() {
+        assertEquals(Arrays.asList("дрель", "bosch", "2000"),
+                new ArrayList<>(ItemNameTrie.tokensOf("Дрель BOSCH-2000, дрель")));
+        assertEquals(0, ItemNameTrie.tokensOf(null).size());
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemRelevanceRankerTest {
+    private final Item nameHit = new Item(1, "Дрель", "Мощная", true, null, null);
+    private final Item descriptionHit = new Item(2, "Шуруповерт", "Дрель-шуруповерт", true, null, null);
+    private final Item doubleDescriptionHit = new Item(3, "Набор", "Дрель и сверла для дрели", true, null, null);
+    private final Item popularDescriptionHit = new Item(4, "Перфоратор", "Дрель", true, null, null);
+
+    @Test
+    void resultOrderedByScore() {
+        Map<Integer, Long> completedBookings = new HashMap<>();
+        completedBookings.put(popularDescriptionHit.getId(), 10L);
+        ItemRelevanceRanker ranker = new ItemRelevanceRanker("дрел", 10);
+        ranker.offer(Arrays.asList(descriptionHit, popularDescriptionHit), completedBookings);
+        ranker.offer(Arrays.asList(nameHit, doubleDescriptionHit), Collections.emptyMap());
+
+        assertEquals(Arrays.asList(popularDescriptionHit, nameHit, doubleDescriptionHit, descriptionHit), ranker.result());
+    }
+
+    @Test
+    void resultKeepsOnlyTopLimit() {
+        ItemRelevanceRanker ranker = new ItemRelevanceRanker("дрел", 2);
+        ranker.offer(Arrays.asList(descriptionHit, nameHit, doubleDescriptionHit), Collections.emptyMap());
+
+        List<Item> result = ranker.result();
+        assertEquals(Arrays.asList(nameHit, doubleDescriptionHit), result);
+    }
+
+    @Test
+    void equalScoresOrderedById() {
+        Item sameAsDescriptionHit = new Item(5, "Станок", "Дрель", true, null, null);
+        ItemRelevanceRanker ranker = new ItemRelevanceRanker("дрель", 1);
+        ranker.offer(Arrays.asList(sameAsDescriptionHit, descriptionHit), Collections.emptyMap());
+
+        assertEquals(Collections.singletonList(descriptionHit), ranker.result());
+    }
+
+    @Test
+    void scoreWeightsNameAboveDescription() {
+        ItemRelevanceRanker ranker = new ItemRelevanceRanker("ДРЕЛЬ", 1);
+        assertEquals(ItemRelevanceRanker.NAME_WEIGHT, ranker.score(nameHit, 0));
+        assertEquals(ItemRelevanceRanker.DESCRIPTION_WEIGHT, ranker.score(descriptionHit, 0));
+        assertEquals(Math.log1p(3), ranker.score(new Item(6, "Пила", "Ножовка", true, null, null), 3));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ItemSearchIndexTest {
+    private ItemSearchIndex index;
+    private User owner;
+    private Item drill;
+    private Item driver;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User(1, "owner@owner.ru", "owner");
+        User other = new User(2, "other@other.ru", "other");
+        drill = new Item(1, "Дрель", "ударная дрель", true, owner, null);
+        driver = new Item(2, "Драйвер", "драйвер для дрели", true, owner, null);
+        Item otherDrill = new Item(3, "Дрель", "аккумуляторная дрель", true, other, null);
+
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findAllByAvailableIsTrueAndIdGreaterThanOrderByIdAsc(eq(0), any()))
+                .thenReturn(Arrays.asList(drill, driver, otherDrill));
+        index = new ItemSearchIndex(itemRepository);
+        index.warmUp();
+    }
+
+    @Test
+    void itemsOfDeletedUserAreRemoved() {
+        assertArrayEquals(new int[]{1, 2, 3}, index.findCandidates("дрел"));
+        assertEquals(Arrays.asList("дрель", "драйвер"), index.suggest("др", 10));
+
+        index.onUserDeleted(new UserDeletedEvent(owner.getId(), List.of(drill, driver)));
+
+        assertArrayEquals(new int[]{3}, index.findCandidates("дрел"));
+        assertEquals(Collections.singletonList("дрель"), index.suggest("др", 10));
+    }
+
+    @Test
+    void unavailableItemsOfDeletedUserAreSkipped() {
+        Item hidden = new Item(4, "Драйвер", "драйвер", false, owner, null);
+
+        index.onUserDeleted(new UserDeletedEvent(owner.getId(), List.of(hidden)));
+
+        assertEquals(Arrays.asList("дрель", "драйвер"), index.suggest("др", 10));
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.add(3, "Дрель", "Аккумуляторная дрель");
+        index.add(1, "Отвертка", "Крестовая отвертка");
+        index.add(2, "Дрель ударная", "Мощная");
+    }
+
+    @Test
+    void searchOk() {
+        assertArrayEquals(new int[]{2, 3}, index.search("дрЕЛ"));
+        assertArrayEquals(new int[]{1}, index.search("ОТВЕРТ"));
+        assertArrayEquals(new int[]{3}, index.search("аккум"));
+    }
+
+    @Test
+    void searchNotFound() {
+        assertArrayEquals(new int[0], index.search("пила"));
+        assertArrayEquals(new int[0], index.search("др"));
+    }
+
+    @Test
+    void removeOk() {
+        index.remove(3, "Дрель", "Аккумуляторная дрель");
+        assertArrayEquals(new int[]{2}, index.search("дрель"));
+        assertArrayEquals(new int[0], index.search("аккум"));
+
+        index.remove(2, "Дрель ударная", "Мощная");
+        assertArrayEquals(new int[0], index.search("дрель"));
+    }
+
+    @Test
+    void mostSimilarOrdersBySharedTrigrams() {
+        List<TrigramIndex.Match> matches = index.mostSimilar("Нужна ударная дрель", 10, 3);
+
+        assertEquals(2, matches.size());
+        assertEquals(2, matches.get(0).getId());
+        assertEquals(3, matches.get(1).getId());
+        assertTrue(matches.get(0).getSharedTrigrams() > matches.get(1).getSharedTrigrams());
+        assertEquals(1, index.mostSimilar("Нужна ударная дрель", 1, 3).size());
+        assertTrue(index.mostSimilar("пила", 10, 1).isEmpty());
+    }
+
+    @Test
+    void trigramsOfDeduplicates() {
+        assertEquals(1, TrigramIndex.trigramsOf("aaaa", "AAA").length);
+        assertEquals(0, TrigramIndex.trigramsOf("ab", null).length);
+    }
+
+    @Test
+    void trigramsOfTextLongerAfterLowerCase() {
+        // "İ" в нижнем регистре превращается в два символа: из 3 символов получается 6
+        assertEquals(2, TrigramIndex.trigramsOf("\u0130\u0130\u0130").length);
+
+        index.add(4, "\u0130\u0130\u0130", "\u0130zmir");
+        assertArrayEquals(new int[]{4}, index.search("\u0130\u0130"));
+    }
+
+    @Test
+    void isSearchable() {
+        assertTrue(TrigramIndex.isSearchable("abc"));
+        assertFalse(TrigramIndex.isSearchable("ab"));
+        assertFalse(TrigramIndex.isSearchable(null));
+    }
+}
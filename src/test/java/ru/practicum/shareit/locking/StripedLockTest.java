@@ -0,0 +1,39 @@
+package ru.practicum.shareit.locking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedLockTest {
+
+    @Test
+    void sizeRoundedToPowerOfTwo() {
+        assertEquals(64, new StripedLock(64).size());
+        assertEquals(64, new StripedLock(33).size());
+        assertEquals(1, new StripedLock(1).size());
+        assertThrows(IllegalArgumentException.class, () -> new StripedLock(0));
+    }
+
+    @Test
+    void sameKeySameLock() {
+        StripedLock stripedLock = new StripedLock(16);
+
+        assertSame(stripedLock.get(42), stripedLock.get(42));
+    }
+
+    @Test
+    void sequentialKeysSpreadOverStripes() {
+        StripedLock stripedLock = new StripedLock(16);
+        Set<Lock> used = new HashSet<>();
+
+        for (int key = 1; key <= 64; key++) {
+            used.add(stripedLock.get(key));
+        }
+
+        assertEquals(16, used.size());
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCursorTest {
+
+    @Test
+    void encodeAndDecodeIdCursor() {
+        PageCursor cursor = PageCursor.of(42);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+        assertEquals(cursor, decoded);
+        assertNull(decoded.getEnd());
+        assertEquals(42, decoded.getId());
+    }
+
+    @Test
+    void encodeAndDecodeEndCursor() {
+        LocalDateTime end = LocalDateTime.of(2024, Month.MAY, 25, 12, 45, 10, 123000000);
+        PageCursor cursor = PageCursor.of(end, 7);
+
+        String encoded = cursor.encode();
+        assertFalse(encoded.contains("|"));
+        assertFalse(encoded.contains("="));
+        PageCursor decoded = PageCursor.decode(encoded);
+        assertEquals(end, decoded.getEnd());
+        assertEquals(7, decoded.getId());
+    }
+
+    @Test
+    void decodeFails() {
+        assertThrows(ValidationException.class, () -> PageCursor.decode("не курсор"));
+        assertThrows(ValidationException.class, () -> PageCursor.decode("YWJj"));
+        assertThrows(ValidationException.class, () -> PageCursor.decode("MjAyNHwx"));
+    }
+}
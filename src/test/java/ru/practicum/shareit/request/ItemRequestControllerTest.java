@@ -9,8 +9,11 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+import ru.practicum.shareit.request.event.RequestItemSavedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -21,6 +24,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -122,4 +128,44 @@ public class ItemRequestControllerTest {
         verify(itemRequestService, times(1)).findItemRequestWithResponseById(2, 5);
     }
 
+    @Test
+    void findSuggestedItemsOk() throws Exception {
+        ItemDto item = new ItemDto(7, "Книга", "Новая книга", true, null);
+        when(itemRequestService.findSuggestedItems(2, 5)).thenReturn(Collections.singletonList(item));
+        mockMvc.perform(get("/requests/5/suggestions")
+                .header("X-Sharer-User-Id", 2)
+                .characterEncoding(StandardCharsets.UTF_8)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(7)))
+                .andExpect(jsonPath("$[0].name", is("Книга")));
+
+        verify(itemRequestService, times(1)).findSuggestedItems(2, 5);
+    }
+
+    @Test
+    void subscribeToAnswersReceivesLinkedItems() throws Exception {
+        RequestAnswerNotifier notifier = new RequestAnswerNotifier(60000, Runnable::run);
+        when(itemRequestService.subscribeToAnswers(2)).thenAnswer(invocationOnMock -> notifier.subscribe(2));
+
+        MvcResult result = mockMvc.perform(get("/requests/stream")
+                .header("X-Sharer-User-Id", 2)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        notifier.onRequestItemSaved(new RequestItemSavedEvent(new ItemDto(3, "book", "book for read", true, 5),
+                null, 2, true));
+        notifier.onRequestItemSaved(new RequestItemSavedEvent(new ItemDto(4, "pen", "pen for write", true, 6),
+                null, 7, true));
+        notifier.onRequestItemSaved(new RequestItemSavedEvent(new ItemDto(3, "book", "renamed", true, 5),
+                5, 2, false));
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("event:" + RequestAnswerNotifier.EVENT_NAME));
+        assertTrue(content.contains("\"id\":3"));
+        assertFalse(content.contains("\"id\":4"));
+        assertFalse(content.contains("renamed"));
+        assertEquals(1, notifier.subscriberCount());
+        verify(itemRequestService, times(1)).subscribeToAnswers(2);
+    }
 }
@@ -0,0 +1,132 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.event.RequestItemSavedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemRequestFeedCacheTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, Month.MAY, 29, 12, 0);
+    private static final long MAX_AGE_MILLIS = 1000;
+
+    private AtomicLong nanos;
+    private ItemRequestFeedCache cache;
+    private List<ItemRequestWithResponseDto> database;
+    private AtomicInteger loads;
+    private IntFunction<List<ItemRequestWithResponseDto>> loader;
+
+    @BeforeEach
+    void setUp() {
+        nanos = new AtomicLong();
+        cache = new ItemRequestFeedCache(3, MAX_AGE_MILLIS, nanos::get);
+        database = new ArrayList<>(Arrays.asList(request(4, 2), request(3, 1), request(2, 2), request(1, 1)));
+        loads = new AtomicInteger();
+        loader = limit -> {
+            loads.incrementAndGet();
+            return database.stream().limit(limit).map(this::copy).collect(Collectors.toList());
+        };
+    }
+
+    @Test
+    void pageExcludesOwnRequests() {
+        assertEquals(List.of(4, 2), ids(cache.findPage(1, 0, 2, loader).orElseThrow()));
+        assertEquals(List.of(3), ids(cache.findPage(2, 0, 1, loader).orElseThrow()));
+
+        assertEquals(1, loads.get());
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    void pageBeyondSnapshotIsNotAnswered() {
+        assertTrue(cache.findPage(1, 1, 2, loader).isEmpty());
+        assertTrue(cache.findPage(2, 0, 5, loader).isEmpty());
+
+        assertEquals(1, loads.get());
+        assertEquals(0, cache.hitRatio());
+    }
+
+    @Test
+    void completeSnapshotAnswersAnyPage() {
+        database.remove(0);
+
+        assertEquals(List.of(3, 1), ids(cache.findPage(2, 0, 1000000, loader).orElseThrow()));
+        assertEquals(Collections.emptyList(), ids(cache.findPage(2, 5, 5, loader).orElseThrow()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void createdRequestIsInsertedByCreated() {
+        cache.findPage(1, 0, 1, loader);
+
+        cache.onItemRequestCreated(new ItemRequestCreatedEvent(request(5, 2)));
+
+        assertEquals(List.of(5, 4, 3), ids(cache.findPage(7, 0, 3, loader).orElseThrow()));
+        assertTrue(cache.findPage(7, 0, 4, loader).isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void savedItemReplacesAnswerOfRequest() {
+        cache.findPage(1, 0, 1, loader);
+
+        cache.onRequestItemSaved(new RequestItemSavedEvent(item(10, 4, "name"), null, 2, true));
+        cache.onRequestItemSaved(new RequestItemSavedEvent(item(10, 4, "renamed"), 4, 2, false));
+        cache.onRequestItemSaved(new RequestItemSavedEvent(item(11, 4, "name"), null, 2, true));
+        cache.onRequestItemSaved(new RequestItemSavedEvent(item(11, 2, "name"), 4, 1, false));
+
+        List<ItemRequestWithResponseDto> page = cache.findPage(7, 0, 3, loader).orElseThrow();
+        assertEquals(List.of(item(10, 4, "renamed")), page.get(0).getItems());
+        assertEquals(List.of(item(11, 2, "name")), page.get(2).getItems());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void snapshotIsReloadedWhenOldOrInvalidated() {
+        cache.findPage(1, 0, 1, loader);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MILLIS) / 2);
+        assertEquals((double) TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MILLIS) / 2, cache.stalenessNanos());
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MILLIS));
+
+        cache.findPage(1, 0, 1, loader);
+        cache.onUserDeleted(new UserDeletedEvent(1, Collections.emptyList()));
+        cache.findPage(1, 0, 1, loader);
+
+        assertEquals(3, loads.get());
+        assertEquals(0, cache.stalenessNanos());
+    }
+
+    private ItemRequestWithResponseDto request(int id, int requestorId) {
+        return new ItemRequestWithResponseDto(id, "description" + id, requestorId, BASE.plusMinutes(id),
+                new ArrayList<>());
+    }
+
+    private ItemRequestWithResponseDto copy(ItemRequestWithResponseDto itemRequest) {
+        return new ItemRequestWithResponseDto(itemRequest.getId(), itemRequest.getDescription(),
+                itemRequest.getRequestor(), itemRequest.getCreated(), new ArrayList<>(itemRequest.getItems()));
+    }
+
+    private static ItemDto item(int id, int requestId, String name) {
+        return new ItemDto(id, name, "description", true, requestId);
+    }
+
+    private static List<Integer> ids(List<ItemRequestWithResponseDto> itemRequests) {
+        return itemRequests.stream().map(ItemRequestWithResponseDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.TrigramIndex;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.model.RequestSuggestion;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class ItemRequestMatcherTest {
+    private static final String DESCRIPTION = "Нужна ударная дрель";
+
+    private ItemSearchIndex itemSearchIndex;
+    private ItemRepository itemRepository;
+    private RequestSuggestionRepository suggestionRepository;
+    private ExecutorService executor;
+    private ItemRequestMatcher matcher;
+    private ItemRequestWithResponseDto itemRequest;
+
+    @BeforeEach
+    void setUp() {
+        itemSearchIndex = mock(ItemSearchIndex.class);
+        itemRepository = mock(ItemRepository.class);
+        suggestionRepository = mock(RequestSuggestionRepository.class);
+        executor = mock(ExecutorService.class);
+        matcher = new ItemRequestMatcher(itemSearchIndex, itemRepository, suggestionRepository, executor, 2, 3);
+        itemRequest = new ItemRequestWithResponseDto(10, DESCRIPTION, 1,
+                LocalDateTime.of(2024, Month.MAY, 29, 12, 0));
+        Mockito.doReturn(true).when(itemSearchIndex).canSearch(DESCRIPTION);
+    }
+
+    @Test
+    void matchSavesBestItemsOfOtherUsers() {
+        Mockito.doReturn(List.of(new TrigramIndex.Match(5, 9), new TrigramIndex.Match(3, 7),
+                        new TrigramIndex.Match(4, 6), new TrigramIndex.Match(2, 4)))
+                .when(itemSearchIndex).findSimilar(DESCRIPTION, 8, 3);
+        Mockito.doReturn(List.of(2, 3, 4)).when(itemRepository)
+                .findAvailableIdsNotOwnedBy(List.of(5, 3, 4, 2), 1);
+
+        matcher.match(itemRequest);
+
+        ArgumentCaptor<List> suggestions = ArgumentCaptor.forClass(List.class);
+        verify(suggestionRepository, times(1)).saveAll(suggestions.capture());
+        List<RequestSuggestion> saved = suggestions.getValue();
+        assertEquals(2, saved.size());
+        assertEquals(3, saved.get(0).getItemId());
+        assertEquals(7, saved.get(0).getScore());
+        assertEquals(4, saved.get(1).getItemId());
+        assertEquals(10, saved.get(1).getRequestId());
+    }
+
+    @Test
+    void matchSkippedWhenIndexNotReady() {
+        Mockito.doReturn(false).when(itemSearchIndex).canSearch(DESCRIPTION);
+
+        matcher.match(itemRequest);
+
+        verify(itemSearchIndex, times(0)).findSimilar(any(), anyInt(), anyInt());
+        verify(suggestionRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    void eventIsScoredOnExecutor() {
+        matcher.onItemRequestCreated(new ItemRequestCreatedEvent(itemRequest));
+
+        verify(executor, times(1)).execute(any());
+        verify(itemSearchIndex, times(0)).findSimilar(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void fullQueueDoesNotFailRequestCreation() {
+        Mockito.doThrow(new RejectedExecutionException()).when(executor).execute(any());
+
+        matcher.onItemRequestCreated(new ItemRequestCreatedEvent(itemRequest));
+
+        verify(suggestionRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    void invalidSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ItemRequestMatcher(itemSearchIndex, itemRepository, suggestionRepository, executor, 0, 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ItemRequestMatcher(itemSearchIndex, itemRepository, suggestionRepository, executor, 2, 0));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.request;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.CrudRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ItemRequestQueryCountTest {
+
+    @Autowired
+    ItemRequestService itemRequestService;
+
+    @Autowired
+    List<JpaRepository> repositoryList;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    ItemRequestFeedCache itemRequestFeedCache;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User requestor;
+    private User owner;
+
+    @BeforeEach
+    void beforeEach() {
+        repositoryList.forEach(CrudRepository::deleteAll);
+        requestor = userRepository.save(new User("requestor@requestor.ru", "requestor"));
+        owner = userRepository.save(new User("owner@owner.ru", "owner"));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void requestsOfOtherUsersCostConstantNumberOfStatements() {
+        createRequests(2);
+        itemRequestFeedCache.invalidate();
+        statistics.clear();
+        List<ItemRequestWithResponseDto> smallPage = itemRequestService.findAllItemRequestsOfOtherUsers(owner.getId(),
+                0, 1000000);
+        long smallPageStatements = statistics.getPrepareStatementCount();
+
+        createRequests(20);
+        itemRequestFeedCache.invalidate();
+        statistics.clear();
+        List<ItemRequestWithResponseDto> largePage = itemRequestService.findAllItemRequestsOfOtherUsers(owner.getId(),
+                0, 1000000);
+        long largePageStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(2, smallPage.size());
+        assertEquals(22, largePage.size());
+        assertEquals(2, largePage.get(0).getItems().size());
+        assertEquals(3, largePageStatements);
+        assertEquals(smallPageStatements, largePageStatements);
+    }
+
+    @Test
+    void requestsOfUserCostConstantNumberOfStatements() {
+        createRequests(20);
+        statistics.clear();
+
+        List<ItemRequestWithResponseDto> itemRequests = itemRequestService.findAllItemRequestsOfUser(requestor.getId());
+
+        assertEquals(20, itemRequests.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void cachedRequestsOfOtherUsersCostOneStatement() {
+        createRequests(20);
+        itemRequestFeedCache.invalidate();
+        itemRequestService.findAllItemRequestsOfOtherUsers(owner.getId(), 0, 10);
+        statistics.clear();
+
+        List<ItemRequestWithResponseDto> itemRequests = itemRequestService.findAllItemRequestsOfOtherUsers(owner.getId(),
+                10, 10);
+
+        assertEquals(10, itemRequests.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private void createRequests(int count) {
+        for (int i = 0; i < count; i++) {
+            ItemRequest itemRequest = itemRequestRepository.save(new ItemRequest(null, "description" + i, requestor,
+                    LocalDateTime.now()));
+            for (int j = 0; j < 2; j++) {
+                Item item = new Item("name" + j, "description" + j, true);
+                item.setOwner(owner);
+                item.setRequest(itemRequest);
+                itemRepository.save(item);
+            }
+        }
+    }
+}
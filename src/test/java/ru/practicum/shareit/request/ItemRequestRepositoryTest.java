@@ -4,7 +4,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestSuggestion;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
@@ -13,6 +17,7 @@ import java.time.Month;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @DataJpaTest
 public class ItemRequestRepositoryTest {
@@ -20,6 +25,10 @@ public class ItemRequestRepositoryTest {
     ItemRequestRepository itemRequestRepository;
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    RequestSuggestionRepository suggestionRepository;
 
     private User user1;
     private User user2;
@@ -65,4 +74,23 @@ public class ItemRequestRepositoryTest {
         assertEquals(request3, result.get(0));
         assertEquals(request4, result.get(1));
     }
+
+    @Test
+    void findSuggestedItemDtosByRequestId() {
+        Item item1 = itemRepository.save(new Item(null, "drill", "cordless drill", true, user2, null));
+        Item item2 = itemRepository.save(new Item(null, "hammer drill", "drill", true, user2, request3));
+        Item unavailable = itemRepository.save(new Item(null, "old drill", "drill", false, user2, null));
+        suggestionRepository.save(new RequestSuggestion(null, request1.getId(), item1.getId(), 5));
+        suggestionRepository.save(new RequestSuggestion(null, request1.getId(), item2.getId(), 9));
+        suggestionRepository.save(new RequestSuggestion(null, request1.getId(), unavailable.getId(), 12));
+        suggestionRepository.save(new RequestSuggestion(null, request2.getId(), item1.getId(), 3));
+
+        List<ItemDto> result = suggestionRepository.findItemDtosByRequestId(request1.getId());
+
+        assertEquals(2, result.size());
+        assertEquals(item2.getId(), result.get(0).getId());
+        assertEquals(request3.getId(), result.get(0).getRequestId());
+        assertEquals(item1.getId(), result.get(1).getId());
+        assertNull(result.get(1).getRequestId());
+    }
 }
@@ -2,23 +2,29 @@ package ru.practicum.shareit.request;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestWithResponseDto;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -30,6 +36,10 @@ public class ItemRequestServiceTest {
     private UserService userService;
     private ItemService itemService;
     private ItemRequestRepository itemRequestRepository;
+    private ItemRequestFeedCache itemRequestFeedCache;
+    private RequestAnswerNotifier requestAnswerNotifier;
+    private RequestSuggestionRepository suggestionRepository;
+    private ApplicationEventPublisher eventPublisher;
     private User user;
     private ItemRequest itemRequest;
     private ItemRequest itemRequest2;
@@ -41,19 +51,28 @@ public class ItemRequestServiceTest {
         userService = mock(UserService.class);
         itemRequestRepository = mock(ItemRequestRepository.class);
 
-        itemRequestService = new ItemRequestService(itemService, userService, itemRequestRepository);
+        itemRequestFeedCache = mock(ItemRequestFeedCache.class);
+        requestAnswerNotifier = mock(RequestAnswerNotifier.class);
+        suggestionRepository = mock(RequestSuggestionRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        itemRequestService = new ItemRequestService(itemService, userService, itemRequestRepository,
+                itemRequestFeedCache, requestAnswerNotifier, suggestionRepository, eventPublisher);
 
         user = new User(100, "user@owner.ru", "owner");
         itemRequest = new ItemRequest(200, "description1", user, LocalDateTime.of(2024, Month.MAY, 29, 12, 0));
         itemRequest2 = new ItemRequest(201, "description2", user, LocalDateTime.of(2024, Month.MAY, 29, 13, 30));
         item = new Item(300, "name1", "description1", true, user, itemRequest);
         Mockito.doReturn(user).when(userService).findUserById(user.getId());
-        Mockito.doReturn(Collections.singletonList(item)).when(itemService).findAllItemsByRequest(itemRequest.getId());
-        Mockito.doReturn(Collections.singletonList(item)).when(itemService).findAllItemsByRequest(itemRequest2.getId());
-        Mockito.doReturn(Collections.singletonList(itemRequest)).when(itemRequestRepository).findAllByRequestorIdOrderByCreatedDesc(user.getId());
+        Mockito.doReturn(Collections.singletonList(ItemMapper.toDto(item))).when(itemService).findAllItemsByRequest(itemRequest.getId());
+        Mockito.doReturn(Collections.singletonMap(itemRequest.getId(), Collections.singletonList(ItemMapper.toDto(item))))
+                .when(itemService).findAllItemDtosByRequests(Collections.singletonList(itemRequest.getId()));
+        Mockito.doReturn(Collections.singletonMap(itemRequest2.getId(), Collections.singletonList(ItemMapper.toDto(item))))
+                .when(itemService).findAllItemDtosByRequests(Collections.singletonList(itemRequest2.getId()));
+        Mockito.doReturn(Collections.singletonList(toRow(itemRequest))).when(itemRequestRepository).findDtosByRequestorId(user.getId());
         Mockito.doReturn(Collections.singletonList(itemRequest2)).when(itemRequestRepository).findAllByRequestorIdNotOrderByCreatedDesc(user.getId());
-        Mockito.doReturn(new PageImpl<>(Collections.singletonList(itemRequest2))).when(itemRequestRepository).findAllByRequestorIdNotOrderByCreatedDesc(eq(user.getId()), any());
-        Mockito.doReturn(Optional.of(itemRequest)).when(itemRequestRepository).findById(itemRequest.getId());
+        Mockito.doReturn(Collections.singletonList(toRow(itemRequest2))).when(itemRequestRepository).findDtosByRequestorIdNot(eq(user.getId()), any());
+        Mockito.doReturn(Optional.of(toRow(itemRequest))).when(itemRequestRepository).findDtoById(itemRequest.getId());
         Mockito.doAnswer(invocationOnMock -> invocationOnMock.getArgument(0)).when(itemRequestRepository).save(any());
     }
 
@@ -69,6 +88,10 @@ public class ItemRequestServiceTest {
         assertEquals(requestDto.getDescription(), itemRequest.getDescription());
         verify(userService, times(1)).findUserById(any());
         verify(itemRequestRepository, times(1)).save(any());
+        ArgumentCaptor<ItemRequestCreatedEvent> event = ArgumentCaptor.forClass(ItemRequestCreatedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(user.getId(), event.getValue().getItemRequest().getRequestor());
+        assertEquals(requestDto.getDescription(), event.getValue().getItemRequest().getDescription());
     }
 
     @Test
@@ -85,8 +108,9 @@ public class ItemRequestServiceTest {
         List<ItemRequestWithResponseDto> allItemRequestsOfUser = itemRequestService.findAllItemRequestsOfUser(user.getId());
 
         verify(userService, times(1)).findUserById(user.getId());
-        verify(itemRequestRepository, times(1)).findAllByRequestorIdOrderByCreatedDesc(user.getId());
-        verify(itemService, times(1)).findAllItemsByRequest(itemRequest.getId());
+        verify(itemRequestRepository, times(1)).findDtosByRequestorId(user.getId());
+        verify(itemService, times(1)).findAllItemDtosByRequests(Collections.singletonList(itemRequest.getId()));
+        verify(itemService, times(0)).findAllItemsByRequest(any());
 
         assertEquals(1, allItemRequestsOfUser.size());
         ItemRequestWithResponseDto itemRequestWithResponseDto = allItemRequestsOfUser.get(0);
@@ -103,7 +127,7 @@ public class ItemRequestServiceTest {
         ItemRequestWithResponseDto itemRequestWithResponseDto = itemRequestService.findItemRequestWithResponseById(user.getId(), itemRequest.getId());
 
         verify(userService, times(1)).findUserById(user.getId());
-        verify(itemRequestRepository, times(1)).findById(itemRequest.getId());
+        verify(itemRequestRepository, times(1)).findDtoById(itemRequest.getId());
         verify(itemService, times(1)).findAllItemsByRequest(itemRequest.getId());
 
         assertEquals(user.getId(), itemRequestWithResponseDto.getRequestor());
@@ -116,11 +140,14 @@ public class ItemRequestServiceTest {
 
     @Test
     void findAllItemRequestsOfOtherUsers() {
+        Mockito.doReturn(Optional.empty()).when(itemRequestFeedCache).findPage(eq(user.getId()), eq(0), eq(100), any());
+
         List<ItemRequestWithResponseDto> allItemRequestsOfUser = itemRequestService.findAllItemRequestsOfOtherUsers(user.getId(), 0, 100);
 
         verify(userService, times(1)).findUserById(user.getId());
-        verify(itemRequestRepository, times(1)).findAllByRequestorIdNotOrderByCreatedDesc(eq(user.getId()), any());
-        verify(itemService, times(1)).findAllItemsByRequest(itemRequest2.getId());
+        verify(itemRequestRepository, times(1)).findDtosByRequestorIdNot(eq(user.getId()), any());
+        verify(itemService, times(1)).findAllItemDtosByRequests(Collections.singletonList(itemRequest2.getId()));
+        verify(itemService, times(0)).findAllItemsByRequest(any());
 
         assertEquals(1, allItemRequestsOfUser.size());
         ItemRequestWithResponseDto itemRequestWithResponseDto = allItemRequestsOfUser.get(0);
@@ -132,8 +159,81 @@ public class ItemRequestServiceTest {
         assertEquals(ItemMapper.toDto(item), itemRequestWithResponseDto.getItems().get(0));
     }
 
+    @Test
+    void findAllItemRequestsOfOtherUsersFromFeedCache() {
+        List<ItemRequestWithResponseDto> cachedPage = Collections.singletonList(toRow(itemRequest2));
+        Mockito.doReturn(Optional.of(cachedPage)).when(itemRequestFeedCache).findPage(eq(user.getId()), eq(10), eq(10), any());
+
+        List<ItemRequestWithResponseDto> result = itemRequestService.findAllItemRequestsOfOtherUsers(user.getId(), 15, 10);
+
+        assertEquals(cachedPage, result);
+        verify(itemRequestRepository, times(0)).findDtosByRequestorIdNot(any(), any());
+        verify(itemService, times(0)).findAllItemDtosByRequests(any());
+    }
+
+    @Test
+    void subscribeToAnswersChecksUser() {
+        Mockito.doThrow(new EntityNotFoundException("Пользователя с Id = 404 не существует"))
+                .when(userService).findUserById(404);
+
+        itemRequestService.subscribeToAnswers(user.getId());
+
+        assertThrows(EntityNotFoundException.class, () -> itemRequestService.subscribeToAnswers(404));
+        verify(requestAnswerNotifier, times(1)).subscribe(user.getId());
+        verify(requestAnswerNotifier, times(0)).subscribe(404);
+    }
+
+    @Test
+    void findSuggestedItems() {
+        Mockito.doReturn(true).when(itemRequestRepository).existsById(itemRequest.getId());
+        Mockito.doReturn(Collections.singletonList(ItemMapper.toDto(item))).when(suggestionRepository)
+                .findItemDtosByRequestId(itemRequest.getId());
+
+        List<ItemDto> items = itemRequestService.findSuggestedItems(user.getId(), itemRequest.getId());
+
+        assertEquals(1, items.size());
+        assertEquals(item.getId(), items.get(0).getId());
+        assertThrows(EntityNotFoundException.class, () -> itemRequestService.findSuggestedItems(user.getId(), 404));
+        verify(suggestionRepository, times(0)).findItemDtosByRequestId(404);
+    }
+
     @Test
     void findAllItemRequestsOfOtherUsersValidation() {
         assertThrows(ValidationException.class, () -> itemRequestService.findAllItemRequestsOfOtherUsers(1, -1, -1));
     }
+
+    @Test
+    void streamAllItemRequestsOfUser() {
+        Mockito.doReturn(Stream.of(itemRequest, itemRequest2)).when(itemRequestRepository)
+                .streamAllByRequestorIdOrderByCreatedDesc(user.getId());
+        Mockito.doReturn(Collections.singletonMap(itemRequest.getId(), Collections.singletonList(item)))
+                .when(itemService).findAllItemsByRequests(any());
+        List<ItemRequestWithResponseDto> list = new ArrayList<>();
+
+        itemRequestService.streamAllItemRequestsOfUser(user.getId(), list::add);
+
+        assertEquals(2, list.size());
+        assertEquals(1, list.get(0).getItems().size());
+        assertEquals(0, list.get(1).getItems().size());
+        verify(itemService, times(1)).findAllItemsByRequests(any());
+        verify(itemService, times(0)).findAllItemsByRequest(any());
+        verify(itemRequestRepository, times(1)).detachAll();
+    }
+
+    @Test
+    void streamAllItemRequestsOfOtherUsers() {
+        Mockito.doReturn(Stream.of(itemRequest2)).when(itemRequestRepository)
+                .streamAllByRequestorIdNotOrderByCreatedDesc(user.getId());
+        List<ItemRequestWithResponseDto> list = new ArrayList<>();
+
+        itemRequestService.streamAllItemRequestsOfOtherUsers(user.getId(), list::add);
+
+        assertEquals(1, list.size());
+        assertEquals(itemRequest2.getId(), list.get(0).getId());
+    }
+
+    private ItemRequestWithResponseDto toRow(ItemRequest itemRequest) {
+        return new ItemRequestWithResponseDto(itemRequest.getId(), itemRequest.getDescription(),
+                itemRequest.getRequestor().getId(), itemRequest.getCreated());
+    }
 }
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.event.RequestItemSavedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RequestAnswerNotifierTest {
+    private List<Runnable> tasks;
+    private RequestAnswerNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        tasks = new ArrayList<>();
+        notifier = new RequestAnswerNotifier(60000, tasks::add);
+    }
+
+    @Test
+    void sendingIsHandedToExecutor() {
+        notifier.subscribe(2);
+
+        notifier.onRequestItemSaved(itemSaved(2));
+        notifier.onRequestItemSaved(itemSaved(7));
+
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    void failedSubscriberIsDropped() {
+        SseEmitter emitter = notifier.subscribe(2);
+        notifier.subscribe(2);
+        emitter.complete();
+
+        notifier.onRequestItemSaved(itemSaved(2));
+        tasks.forEach(Runnable::run);
+
+        assertEquals(1, notifier.subscriberCount());
+    }
+
+    @Test
+    void fullQueueDoesNotFailItemSaving() {
+        notifier = new RequestAnswerNotifier(60000, task -> {
+            throw new RejectedExecutionException();
+        });
+        notifier.subscribe(2);
+
+        notifier.onRequestItemSaved(itemSaved(2));
+
+        assertEquals(1, notifier.subscriberCount());
+    }
+
+    @Test
+    void invalidTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> new RequestAnswerNotifier(0, Runnable::run));
+    }
+
+    private static RequestItemSavedEvent itemSaved(Integer requestorId) {
+        return new RequestItemSavedEvent(new ItemDto(3, "book", "book for read", true, 5), null, requestorId, true);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NdjsonWriterTest {
+
+    @Test
+    void writeOneDocumentPerLine() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        NdjsonWriter writer = new NdjsonWriter(new ObjectMapper(), outputStream);
+        UserDto first = new UserDto();
+        first.setId(1);
+        first.setName("Irina");
+        UserDto second = new UserDto();
+        second.setId(2);
+        second.setName("Ирина");
+
+        writer.write(first);
+        writer.write(second);
+        assertEquals(0, outputStream.size());
+        writer.flush();
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals(new ObjectMapper().writeValueAsString(first), lines[0]);
+        assertEquals(new ObjectMapper().writeValueAsString(second), lines[1]);
+        assertEquals("", lines[2]);
+    }
+}
@@ -2,11 +2,17 @@ package ru.practicum.shareit.user;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.shareit.exception.ConflictValidationException;
 import ru.practicum.shareit.exception.EntityNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
@@ -22,6 +28,8 @@ public class UserServiceTest {
 
     private UserService userService;
     private UserRepository userRepository;
+    private ItemRepository itemRepository;
+    private ApplicationEventPublisher eventPublisher;
 
     private User user1;
     private User user2;
@@ -29,7 +37,9 @@ public class UserServiceTest {
     @BeforeEach
     void beforeEach() {
         userRepository = mock(UserRepository.class);
-        userService = new UserService(userRepository);
+        itemRepository = mock(ItemRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        userService = new UserService(userRepository, itemRepository, eventPublisher);
         user1 = new User(1, "user@owner.ru", "owner");
         user2 = new User(2, "user@asker.ru", "asker");
 
@@ -37,6 +47,7 @@ public class UserServiceTest {
         Mockito.doReturn(Optional.of(user1)).when(userRepository).findById(user1.getId());
         Mockito.doReturn(Optional.of(user2)).when(userRepository).findById(user2.getId());
         Mockito.doReturn(Optional.empty()).when(userRepository).findById(404);
+        Mockito.doReturn(true).when(userRepository).existsByEmailAndIdNot(user2.getEmail(), user1.getId());
         Mockito.doAnswer(invocationOnMock -> invocationOnMock.getArgument(0)).when(userRepository).save(any());
     }
 
@@ -125,14 +136,32 @@ public class UserServiceTest {
         userDto.setEmail("user@asker.ru");
         assertThrows(ConflictValidationException.class, () -> userService.updateUser(user1.getId(), userDto));
         verify(userRepository, times(0)).save(any());
+        verify(userRepository, times(0)).findAll();
+    }
+
+    @Test
+    void updateUserEmailTakenConcurrently() {
+        UserDto userDto = new UserDto();
+        userDto.setEmail("taken@email.com");
+        Mockito.doThrow(new DataIntegrityViolationException("UQ_USER_EMAIL")).when(userRepository).save(any());
+
+        assertThrows(ConflictValidationException.class, () -> userService.updateUser(user1.getId(), userDto));
+        verify(userRepository, times(1)).existsByEmailAndIdNot("taken@email.com", user1.getId());
     }
 
     @Test
     void deleteUserOk() {
+        Item item = new Item(3, "drill", "cordless drill", true, user1, null);
+        Mockito.doReturn(List.of(item)).when(itemRepository).findAllByOwnerId(user1.getId());
+
         userService.deleteUser(user1.getId());
 
         verify(userRepository, times(1)).findById(user1.getId());
         verify(userRepository, times(1)).delete(user1);
+        ArgumentCaptor<UserDeletedEvent> event = ArgumentCaptor.forClass(UserDeletedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(user1.getId(), event.getValue().getUserId());
+        assertEquals(List.of(item), event.getValue().getItems());
     }
 
     @Test
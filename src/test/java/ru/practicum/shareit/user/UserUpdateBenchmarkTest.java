@@ -0,0 +1,84 @@
+package ru.practicum.shareit.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.BenchmarkSupport;
+import ru.practicum.shareit.exception.ConflictValidationException;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Сравнивает время обновления пользователя при тысяче и при миллионе пользователей в базе:
+ * проверка уникальности почты идёт по индексу UQ_USER_EMAIL и не должна зависеть от размера таблицы.
+ * Запас в MARGIN раз ловит полный просмотр таблицы, который на миллионе строк медленнее в сотни раз.
+ * Запускается только с -Dshareit.benchmark=true: заполнение таблицы занимает заметное время.
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+public class UserUpdateBenchmarkTest {
+    private static final int SMALL = 1_000;
+    private static final int LARGE = 1_000_000;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 201;
+    private static final int MARGIN = 10;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private UserService userService;
+    private User user;
+    private int updates;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        userService = new UserService(userRepository, mock(ItemRepository.class), mock(ApplicationEventPublisher.class));
+        user = userRepository.saveAndFlush(new User(null, "bench@bench.ru", "bench"));
+    }
+
+    @Test
+    void updateLatencyDoesNotGrowWithUsers() {
+        BenchmarkSupport.insertUsers(jdbcTemplate, 1, SMALL - 1);
+        long small = medianNanos();
+        BenchmarkSupport.insertUsers(jdbcTemplate, SMALL, LARGE - SMALL);
+        long large = medianNanos();
+
+        log.info("Обновление пользователя: при {} пользователях {} мкс, при {} пользователях {} мкс",
+                SMALL, small / 1000, LARGE, large / 1000);
+        assertEquals(LARGE, userRepository.count());
+        BenchmarkSupport.assertWithin(large, small, MARGIN, "Обновление замедлилось с ростом числа пользователей");
+
+        UserDto taken = new UserDto();
+        taken.setEmail("user" + LARGE / 2 + "@mail.ru");
+        assertThrows(ConflictValidationException.class, () -> userService.updateUser(user.getId(), taken));
+    }
+
+    private long medianNanos() {
+        return BenchmarkSupport.median(WARMUP, ITERATIONS, () -> BenchmarkSupport.nanosOf(this::update));
+    }
+
+    private void update() {
+        UserDto userDto = new UserDto();
+        userDto.setEmail("bench" + updates++ + "@bench.ru");
+        userService.updateUser(user.getId(), userDto);
+    }
+}